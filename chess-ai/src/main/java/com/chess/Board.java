@@ -1,10 +1,12 @@
 package com.chess;
 
-import com.chess.ai.BasicEvaluationMethod;
+import com.chess.ai.OpeningBook;
+import com.chess.ai.Tablebases;
 import com.chess.piece.*;
 import com.chess.player.MiniMaxAI;
 import com.chess.player.Human;
 import com.chess.player.PlayMode;
+import com.chess.player.SearchMonitor;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -26,10 +28,11 @@ import javafx.stage.Stage;
 import javafx.stage.Window;
 
 import java.io.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents a board on which chess will be played by two players, AI vs AI, AI vs Human, and Human vs Human.
@@ -38,7 +41,7 @@ import java.util.TreeSet;
 public class Board extends Application {
 
     //initializing board size, GUI, players, AI, starting depth, colors, and current piece selected
-    public static final int BOARD_SIZE = 8;
+    public static final int BOARD_SIZE = BoardState.BOARD_SIZE;
     public static final double BOARD_SIZE_UI = 90;
     public static final String PLAYER_1 = "Player 1";
     public static final String PLAYER_2 = "Player 2";
@@ -52,13 +55,11 @@ public class Board extends Application {
     */
 
 
-    // null means no piece
-    private Piece[][] board = new Piece[BOARD_SIZE][BOARD_SIZE];
+    // the game itself, the board only shows it and forwards the moves of the players
+    private BoardState state = new BoardState();
     private PlayMode[] players = new PlayMode[2];
-    private ArrayList<Movement> previousMovements = new ArrayList<>();
-    private int turn = 0;
 
-    public static Color[] turnColors = {Color.WHITE, Color.BLACK};
+    public static Color[] turnColors = BoardState.turnColors;
 
     private GridPane pane = new GridPane();
 
@@ -78,133 +79,62 @@ public class Board extends Application {
 
 
     private Piece selectedPiece = null;
-    private static final char EMPTY = '.';
 
     public Board() throws IOException {
     }
 
-    // clones the board
-    public Board clone() {
-        try {
-            Board boardCloned = new Board();
-            Piece[][] realBoardCloned = new Piece[BOARD_SIZE][BOARD_SIZE];
-            boardCloned.board = realBoardCloned;
-            for (int i = 0; i < realBoardCloned.length; i++) {
-                for (int j = 0; j < realBoardCloned[i].length; j++) {
-                    realBoardCloned[i][j] = board[i][j];
-                }
-            }
-            boardCloned.turn = turn;
-
-            return boardCloned;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    // figures out the game result based on moves available, check and checkmate
-    public GameResult isGameOver() {
-        boolean amICheck = isCheck();
-        final ArrayList<Movement> allMyMovements = getAllMyMovements(true);
-        boolean hasMovementsAvailable = !allMyMovements.isEmpty();
-
-        return new GameResult(amICheck, hasMovementsAvailable, this);
-    }
-
-    /**
-     * @param one True if we want only 1 movement.
-     * @return
-     */
-    public ArrayList<Movement> getAllMyMovements(boolean one) {
-        ArrayList<Movement> allMovements = new ArrayList<>();
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                Piece piece = board[i][j];
-                if (piece != null && piece.getColor().equals(turnColors[turn])) {
-                    allMovements.addAll(piece.getAllPossibleMovements(this, false));
-                    if (one && !allMovements.isEmpty()) {
-                        return allMovements;
-                    }
-                }
-            }
-        }
-        return allMovements;
-    }
-
-    // any valid moves as well as if moving will result in a check
-    public boolean isValid(Movement movement, boolean autoCheck) {
-        if (movement.getPiece() == null) {
-            return false; // do not have a valid piece
-        }
-        Piece destinationPiece = getBoard()[movement.getDestination().getX()][movement.getDestination().getY()];
-        if (destinationPiece != null && destinationPiece.getColor().equals(movement.getPiece().getColor())) {
-            // cannot move the piece over a piece of the same color
-            return false;
-        }
-
-        // moving a piece in current turn
-        if (!movement.getPiece().getColor().equals(turnColors[turn])) {
-            return false;
-        }
-
-        // moving a piece to a valid position
-        if (!movement.getPiece().canMoveTo(this, movement)) {
-            return false;
-        }
+    private Thread playThread;
 
-        // if piece is in check or will be in check after move
-        if (!autoCheck && isCheckAfterMove(movement)) {
-            return false;
-        }
+    private volatile boolean waitingMove = false;
 
-        // otherwise allow movement
-        return true;
-    }
+    // counted down to stop the game being played, see stopGame
+    private CountDownLatch stopSignal;
 
-    private Thread playThread;
+    // the pause between movements, so the game goes at a good pace when AI is moving
+    private static final long MOVEMENT_PAUSE = 500;
 
-    private boolean waitingMove = false;
+    // how long to wait for the game to stop before asking the player again
+    private static final long STOP_WAIT = 10;
 
     // play the game turn by turn either AI or as a human (as a human can play with mouse or via input text command)
     public void play() {
 
-        final Board myBoard = this;
-        final BasicEvaluationMethod basicEvaluationMethod = new BasicEvaluationMethod();
-
+        final CountDownLatch stop = new CountDownLatch(1);
+        stopSignal = stop;
         playThread = new Thread() {
             @Override
             public void run() {
                 // play only if no check and movements possible so pretty much if it is not a draw nor a checkmate
-                GameResult gameOn = new GameResult(false, true, myBoard);
+                GameResult gameOn = new GameResult(false, true, state);
                 gameOn:
-                while (!gameOn.isGameOver()) {
+                while (!gameOn.isGameOver() && stop.getCount() > 0) {
                     Platform.runLater(new Runnable() {
                         @Override
                         public void run() {
                             draw();
                             // disable the input text command if it is AI vs AI or AI vs Human and it is AI's turn
-                            commandText.setDisable(players[turn] instanceof MiniMaxAI);
+                            commandText.setDisable(players[state.getTurn()] instanceof MiniMaxAI);
 
-                            turnLabel.setText(players[turn].getName());
+                            turnLabel.setText(players[state.getTurn()].getName());
                         }
                     });
 
                     // if movement is valid, then allow players to take their individual turns and wait in between turns
-                    final PlayMode currentPlayer = players[turn];
+                    final PlayMode currentPlayer = players[state.getTurn()];
                     Movement currentMove;
                     do {
                         waitingMove = true;
-                        currentMove = currentPlayer.getNextMove(myBoard, turn);
+                        currentMove = currentPlayer.getNextMove(state, state.getTurn());
                         waitingMove = false;
-                        if (currentMove.isEnd()) {
+                        // a stopped game leaves the board alone, a new game may be using it already
+                        if (currentMove.isEnd() || stop.getCount() == 0) {
                             break gameOn;
                         }
-                    } while (!isValid(currentMove, false));
+                    } while (!state.isValid(currentMove, false));
 
                     // print valid movement only
                     System.out.println("Movement received is valid " + currentMove);
-                    currentMove.getPiece().move(myBoard, currentMove);
-                    previousMovements.add(currentMove);
+                    state.applyMovement(currentMove);
 
                     // assign the value from currentMove to finalCurrentMovement variable
                     final Movement finalCurrentMovement = currentMove;
@@ -214,16 +144,20 @@ public class Board extends Application {
                             previousMovementsText.setText(previousMovementsText.getText() + "\n" + finalCurrentMovement);
                         }
                     });
-                    // stops running current thread for 500 ms but can be interrupted by any other thread as an InterruptedException
-                    // to go at a good pace when AI is moving
+                    // waits for 500 ms to go at a good pace when AI is moving, unless the game is stopped meanwhile
                     try {
-                        Thread.sleep(500);
+                        if (stop.await(MOVEMENT_PAUSE, TimeUnit.MILLISECONDS)) {
+                            break;
+                        }
                     } catch (InterruptedException e) {
                         throw new RuntimeException(e);
                     }
 
-                    turn = (turn + 1) % 2;
-                    gameOn = isGameOver();
+                    gameOn = state.isGameOver();
+                }
+
+                if (stop.getCount() == 0) {
+                    return;
                 }
 
                 // assign the value from gameOn to gameResultFinal variable
@@ -247,124 +181,12 @@ public class Board extends Application {
     // return moves as strings along with previous moves to keep track and display
     @Override
     public String toString() {
-        final StringBuilder answer = new StringBuilder();
-        for (Movement movement : previousMovements) {
-            answer.append(movement);
-        }
-        return answer.toString();
+        return state.toString();
     }
 
-    // take string and display on board
-    public String toStringBoard() {
-        final StringBuilder answer = new StringBuilder();
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    answer.append(" ");
-                } else {
-                    answer.append(board[i][j]);
-                }
-            }
-        }
-
-        return answer.toString();
-    }
-
-    // checks if moving will result in a check
-    public boolean isCheckAfterMove(final Movement movement) {
-        // removes the piece and checks if the enemy pieces can attack the king
-        Piece removedPiece = board[movement.getOrigin().getX()][movement.getOrigin().getY()];
-        Piece originalPiece = board[movement.getDestination().getX()][movement.getDestination().getY()];
-        board[movement.getOrigin().getX()][movement.getOrigin().getY()] = null;
-        board[movement.getDestination().getX()][movement.getDestination().getY()] = removedPiece;
-        turn = (turn + 1) % 2;
-
-        boolean answer = isCheck(movement);
-
-        // if this is the case, then undo the movement
-        board[movement.getOrigin().getX()][movement.getOrigin().getY()] = removedPiece;
-        board[movement.getDestination().getX()][movement.getDestination().getY()] = originalPiece;
-        turn = (turn + 1) % 2;
-        return answer;
-    }
-
-    // check if moving will check the enemy king
-    private boolean isCheck(Movement movement) {
-        boolean answer = false;
-        allLoops:
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                Piece piece = board[i][j];
-                if (piece != null && piece.getColor().equals(turnColors[turn])) {
-                    for (Movement m : piece.getAllPossibleMovements(this, true)) {
-                        Position destination = m.getDestination();
-
-                        if (!(movement.getPiece() instanceof King)) {
-                            Piece destinationPiece = board[destination.getX()][destination.getY()];
-                            if (destinationPiece instanceof King && !destinationPiece.getColor().equals(turnColors[turn])) {
-                                answer = true;
-                                break allLoops;
-                            }
-                        } else {
-                            if (destination.equals(movement.getDestination())) {
-                                answer = true;
-                                break allLoops;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return answer;
-    }
-
-    //Check if an enemy piece does check to player playing
-    public boolean isCheck() {
-        turn = (turn + 1) % 2;
-
-        boolean answer = false;
-        allLoops:
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                Piece piece = board[i][j];
-                if (piece != null && piece.getColor().equals(turnColors[turn])) {
-                    for (Movement m : piece.getAllPossibleMovements(this, true)) {
-                        Position destination = m.getDestination();
-
-                        Piece destinationPiece = board[destination.getX()][destination.getY()];
-                        if (destinationPiece instanceof King && !destinationPiece.getColor().equals(turnColors[turn])) {
-                            answer = true;
-                            break allLoops;
-                        }
-                    }
-                }
-            }
-        }
-        turn = (turn + 1) % 2;
-        return answer;
-    }
-
-    // returns position on the board of size defined i.e. 8x8
-    public Position getPiecePosition(final Piece piece) {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (getBoard()[i][j] == piece) {
-                    return new Position(i, j);
-                }
-            }
-        }
-        return null;
-    }
-
-    // array of pieces on a board
-    public Piece[][] getBoard() {
-        return board;
-    }
-
-    // set board size with array of pieces
-    public void setBoard(Piece[][] board) {
-        this.board = board;
+    // the game shown on the board
+    public BoardState getState() {
+        return state;
     }
 
     // ignore
@@ -377,26 +199,6 @@ public class Board extends Application {
         this.players = players;
     }
 
-    // returns list of all movements previously conducted
-    public ArrayList<Movement> getPreviousMovements() {
-        return previousMovements;
-    }
-
-    // ignore
-    public void setPreviousMovements(ArrayList<Movement> previousMovements) {
-        this.previousMovements = previousMovements;
-    }
-
-    // get whose turn it is
-    public int getTurn() {
-        return turn;
-    }
-
-    // set turn of players playing
-    public void setTurn(int turn) {
-        this.turn = turn;
-    }
-
     // draw the board onto the gui
     public void draw() {
         pane.getChildren().clear();
@@ -404,7 +206,7 @@ public class Board extends Application {
         // Let's highlight all the possible movements
         TreeSet<Position> potentialMovements = new TreeSet<>();
         if (selectedPiece != null) {
-            List<Movement> allPossibleMovements = selectedPiece.getAllPossibleMovements(this, false);
+            List<Movement> allPossibleMovements = selectedPiece.getAllPossibleMovements(state, false);
             if (allPossibleMovements != null) {
                 for (Movement m : allPossibleMovements) {
                     potentialMovements.add(m.getDestination());
@@ -413,7 +215,7 @@ public class Board extends Application {
         }
 
         // return if check is applied to current player
-        boolean amICheck = isCheck();
+        boolean amICheck = state.isCheck();
 
         int count = 0;
         for (int i = 0; i < BOARD_SIZE; i++) {
@@ -438,9 +240,9 @@ public class Board extends Application {
                 }
 
                 // highlight the draw
-                final Piece piece = board[BOARD_SIZE - 1 - i][j];
+                final Piece piece = state.getBoard()[BOARD_SIZE - 1 - i][j];
                 if (piece != null) {
-                    if (piece instanceof King && piece.getColor().equals(turnColors[turn]) && amICheck) {
+                    if (piece instanceof King && piece.getColor().equals(turnColors[state.getTurn()]) && amICheck) {
 
                         graphicsContext.setFill(javafx.scene.paint.Color.INDIANRED);
                         drawHighlight(canvas, graphicsContext);
@@ -464,47 +266,10 @@ public class Board extends Application {
         graphicsContext.fillRect(canvas.getHeight() - 5, 0, canvas.getWidth(), canvas.getHeight());
     }
 
-    // creates default board with pieces in default position, i.e. the starting point for both black and white
-    public void loadDefaultBoard() {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                board[i][j] = null;
-            }
-        }
-
-
-        board[0][0] = new Rook(Color.WHITE);
-        board[0][1] = new Knight(Color.WHITE);
-        board[0][2] = new Bishop(Color.WHITE);
-        board[0][3] = new Queen(Color.WHITE);
-        board[0][4] = new King(Color.WHITE);
-        board[0][5] = new Bishop(Color.WHITE);
-        board[0][6] = new Knight(Color.WHITE);
-        board[0][7] = new Rook(Color.WHITE);
-
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            board[1][i] = new Pawn(Color.WHITE);
-        }
-
-        board[7][0] = new Rook(Color.BLACK);
-        board[7][1] = new Knight(Color.BLACK);
-        board[7][2] = new Bishop(Color.BLACK);
-        board[7][3] = new Queen(Color.BLACK);
-        board[7][4] = new King(Color.BLACK);
-        board[7][5] = new Bishop(Color.BLACK);
-        board[7][6] = new Knight(Color.BLACK);
-        board[7][7] = new Rook(Color.BLACK);
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            board[6][i] = new Pawn(Color.BLACK);
-        }
-
-
-    }
-
     // load default board into its array and draw on the board, including creation of all visuals: buttons, input textboxes and status area
     @Override
     public void start(Stage stage) throws Exception {
-        loadDefaultBoard();
+        state.loadDefaultBoard();
         draw();
 
         HBox mainHBox = new HBox();
@@ -522,7 +287,7 @@ public class Board extends Application {
         commandText.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent actionEvent) {
-                printWriter[turn].println(commandText.getText());
+                printWriter[state.getTurn()].println(commandText.getText());
                 commandText.setText("");
             }
         });
@@ -556,7 +321,10 @@ public class Board extends Application {
                 } catch (Exception e) {
 
                 }
-                players[1] = new MiniMaxAI(AI_1, depth, Color.BLACK);
+                final MiniMaxAI ai = createAI(AI_1, depth, Color.BLACK);
+                // the AI thinks on the time of the human too
+                ai.setPondering(true);
+                players[1] = ai;
                 play();
             }
         });
@@ -573,16 +341,13 @@ public class Board extends Application {
                 } catch (Exception e) {
 
                 }
-                players[0] = new MiniMaxAI(AI_1, depth, Color.WHITE);
-                players[1] = new MiniMaxAI(AI_2, depth, Color.BLACK);
+                players[0] = createAI(AI_1, depth, Color.WHITE);
+                players[1] = createAI(AI_2, depth, Color.BLACK);
                 play();
             }
         });
 
 
-        // assign current values of the object to boardFinal variable
-        final Board boardFinal = this;
-
         //This method will Create a new event when we pressed the mouse left click Button and get the Position from the board with x and y co-ordinates
         pane.addEventFilter(MouseEvent.MOUSE_PRESSED, new EventHandler<MouseEvent>() {
             @Override
@@ -593,23 +358,23 @@ public class Board extends Application {
                 // if we are suggesting a move
                 if (selectedPiece != null) {
                     boolean moved = false;
-                    List<Movement> allPossibleMovements = selectedPiece.getAllPossibleMovements(boardFinal, false);
+                    List<Movement> allPossibleMovements = selectedPiece.getAllPossibleMovements(state, false);
                     final Position selectedPosition = new Position(x, y);
                     for (Movement m : allPossibleMovements) {
                         if (m.getDestination().equals(selectedPosition)) {
                             // we suggested an actual movement.
                             moved = true;
-                            printWriter[turn].println("" + getPiecePosition(selectedPiece) + selectedPosition);
+                            printWriter[state.getTurn()].println("" + state.getPiecePosition(selectedPiece) + selectedPosition);
                             selectedPiece = null;
                         }
                     }
 
                     if (!moved) {
-                        selectedPiece = board[x][y];
+                        selectedPiece = state.getBoard()[x][y];
                     }
 
                 } else {
-                    selectedPiece = board[x][y];
+                    selectedPiece = state.getBoard()[x][y];
                 }
 
                 draw();
@@ -696,19 +461,7 @@ public class Board extends Application {
     // saves a game board, the positions of all pieces, which player's turn it is, who the player is, and if one of the
     // player is an AI, then depth at which it is playing at
     private void saveToFile(PrintWriter output) throws FileNotFoundException {
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                if (board[i][j] == null) {
-                    output.print(EMPTY);
-                } else if (board[i][j].getColor() == Color.WHITE) {
-                    output.print(board[i][j].getAlgebraicNotationName().toUpperCase());
-                } else if (board[i][j].getColor() == Color.BLACK) {
-                    output.print(board[i][j].getAlgebraicNotationName().toLowerCase());
-                }
-            }
-            output.println();
-        }
-        output.println(getTurn());
+        state.saveToFile(output);
         for (PlayMode player : players) {
             output.println(player.getIdentifier());
             output.println(player.getName());
@@ -723,44 +476,9 @@ public class Board extends Application {
     /* loads a game board, the positions of all pieces, which player's turn it is, who the player is, and if one of the
      player is an AI, then depth at which it is playing at and the user is able to play from then on */
     private void loadFromFile(InputStream openedFile) throws Exception {
+        stopGame();
         Scanner scanner = new Scanner(openedFile);
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            String line = scanner.nextLine();
-            // throws an exception if the file has more lines than the valid board size
-            if (line.length() != BOARD_SIZE) {
-                throw new Exception("Invalid file chosen");
-            }
-
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                Piece newPiece = null;
-                Color color = (Character.isUpperCase(line.charAt(j))) ? Color.WHITE : Color.BLACK;
-                // assigns each piece to its position according to the piece's name (Q, K, R, B, P, N) N is knight and K is king
-                switch (Character.toUpperCase(line.charAt(j)) + "") {
-                    case Pawn.pieceName:
-                        newPiece = new Pawn(color);
-                        break;
-                    case Knight.ANN:
-                        newPiece = new Knight(color);
-                        break;
-                    case Bishop.ANN:
-                        newPiece = new Bishop(color);
-                        break;
-                    case Rook.ANN:
-                        newPiece = new Rook(color);
-                        break;
-                    case Queen.ANN:
-                        newPiece = new Queen(color);
-                        break;
-                    case King.ANN:
-                        newPiece = new King(color);
-                        break;
-                }
-                board[i][j] = newPiece;
-            }
-        }
-        // setting the turn to either player1, player 2 or AI
-        setTurn(scanner.nextInt());
-        scanner.nextLine();
+        state.loadFromFile(scanner);
         for (int i = 0; i < players.length; i++) {
             String playMode = scanner.nextLine();
             String name = scanner.nextLine();
@@ -769,26 +487,67 @@ public class Board extends Application {
                     players[i] = new Human(name, playerScanners[i]);
                     break;
                 case MiniMaxAI.ID:
-                    players[i] = new MiniMaxAI(name, scanner.nextInt(), (i == 0 ? Color.WHITE : Color.BLACK));
+                    players[i] = createAI(name, scanner.nextInt(), (i == 0 ? Color.WHITE : Color.BLACK));
                     scanner.nextLine();
                     break;
             }
         }
         scanner.close();
+        // an AI playing a human thinks on the time of the human too
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] instanceof MiniMaxAI && players[1 - i] instanceof Human) {
+                ((MiniMaxAI) players[i]).setPondering(true);
+            }
+        }
+    }
+
+    // an AI playing the opening from the book and the endings from the tablebases next to the preset boards, if there
+    // are any
+    private MiniMaxAI createAI(String name, int depth, Color color) {
+        final MiniMaxAI ai = new MiniMaxAI(name, depth, color);
+        ai.setOpeningBook(OpeningBook.openDefault());
+        ai.setTablebases(Tablebases.openDefault());
+        // the statistics of its searches can be followed with JConsole
+        SearchMonitor.register(ai);
+        return ai;
     }
 
     // resets board to play again
     private void resetBoard() {
+        stopGame();
+        state.loadDefaultBoard();
+        previousMovementsText.clear();
+    }
 
-        //
-        if (waitingMove) {
-            printWriter[turn].println(Movement.INVALID_TURN);
+    // stops the game being played, if any, and waits for it to end so it does not play on the next game. A human
+    // waiting to move gets an invalid turn, an AI stops searching and its threads are released
+    private void stopGame() {
+        if (playThread == null) {
+            return;
+        }
+        stopSignal.countDown();
+        boolean humanStopped = false;
+        while (playThread.isAlive()) {
+            // asked again until the game ends, in case the player had not started on its movement yet
+            final PlayMode currentPlayer = players[state.getTurn()];
+            if (currentPlayer instanceof Human) {
+                if (waitingMove && !humanStopped) {
+                    printWriter[state.getTurn()].println(Movement.INVALID_TURN);
+                    humanStopped = true;
+                }
+            } else {
+                currentPlayer.stop();
+            }
+            try {
+                playThread.join(STOP_WAIT);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        playThread = null;
+        for (PlayMode player : players) {
+            player.close();
         }
-
-        previousMovements.clear();
-        turn = 0;
-        loadDefaultBoard();
-        previousMovementsText.clear();
     }
 
 
@@ -0,0 +1,449 @@
+package com.chess;
+
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Move;
+import com.chess.bitboard.MoveGenerator;
+import com.chess.bitboard.MoveList;
+import com.chess.piece.*;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * This class represents the state of a chess game without any user interface attached to it, so it can be used by
+ * the AI on machines without a JavaFX runtime.
+ * It includes attributes and methods for pieces, turn, castling rights, en passant, previous moves, check and game result
+ **/
+public class BoardState {
+
+    public static final int BOARD_SIZE = 8;
+
+    public static final Color[] turnColors = {Color.WHITE, Color.BLACK};
+
+    // castling rights, one bit per king and side of the board
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    private static final char EMPTY = '.';
+
+    // null means no piece
+    private Piece[][] board = new Piece[BOARD_SIZE][BOARD_SIZE];
+    private ArrayList<Movement> previousMovements = new ArrayList<>();
+    private int turn = 0;
+
+    private int castlingRights = 0;
+
+    // square a pawn can capture on en passant, null if the last movement was not a pawn moving 2 squares
+    private Position enPassant = null;
+
+    // the square each piece stands on, one map per color, so a piece is found without looking at every square
+    private Map<Piece, Position>[] piecePositions = newPiecePositions();
+
+    // bitboard of the squares with a piece on them, kept up to date with the pieces, see getOccupancy
+    private long occupancy = 0;
+
+    // clones the state, the pieces themselves are shared as they are not modified while playing
+    @Override
+    public BoardState clone() {
+        BoardState stateCloned = new BoardState();
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            stateCloned.board[i] = board[i].clone();
+        }
+        stateCloned.previousMovements = new ArrayList<>(previousMovements);
+        stateCloned.turn = turn;
+        stateCloned.castlingRights = castlingRights;
+        stateCloned.enPassant = enPassant;
+        for (int color = 0; color < turnColors.length; color++) {
+            stateCloned.piecePositions[color].putAll(piecePositions[color]);
+        }
+        stateCloned.occupancy = occupancy;
+        return stateCloned;
+    }
+
+    // figures out the game result based on moves available, check and checkmate
+    public GameResult isGameOver() {
+        boolean amICheck = isCheck();
+        final ArrayList<Movement> allMyMovements = getAllMyMovements(true);
+        boolean hasMovementsAvailable = !allMyMovements.isEmpty();
+
+        return new GameResult(amICheck, hasMovementsAvailable, this);
+    }
+
+    /**
+     * @param one True if we want only 1 movement.
+     * @return
+     */
+    public ArrayList<Movement> getAllMyMovements(boolean one) {
+        ArrayList<Movement> allMovements = new ArrayList<>();
+        MoveList moves = MoveGenerator.generateMoves(toBitBoard());
+        for (int i = 0; i < moves.size(); i++) {
+            allMovements.add(Move.toMovement(this, moves.get(i)));
+            if (one) {
+                return allMovements;
+            }
+        }
+        return allMovements;
+    }
+
+    // the same state as bitboards, which is what moves are generated and checks are looked for on
+    public BitBoard toBitBoard() {
+        return BitBoard.fromBoardState(this);
+    }
+
+    // any valid moves as well as if moving will result in a check
+    public boolean isValid(Movement movement, boolean autoCheck) {
+        if (movement.getPiece() == null) {
+            return false; // do not have a valid piece
+        }
+        Piece destinationPiece = board[movement.getDestination().getX()][movement.getDestination().getY()];
+        if (destinationPiece != null && destinationPiece.getColor().equals(movement.getPiece().getColor())) {
+            // cannot move the piece over a piece of the same color
+            return false;
+        }
+
+        // moving a piece in current turn
+        if (!movement.getPiece().getColor().equals(turnColors[turn])) {
+            return false;
+        }
+
+        // moving a piece to a valid position
+        if (!movement.getPiece().canMoveTo(this, movement)) {
+            return false;
+        }
+
+        // if piece is in check or will be in check after move
+        if (!autoCheck && isCheckAfterMove(movement)) {
+            return false;
+        }
+
+        // otherwise allow movement
+        return true;
+    }
+
+    // performs a valid movement: moves the pieces, keeps castling rights and en passant up to date and passes the turn
+    public void applyMovement(Movement movement) {
+        movement.getPiece().move(this, movement);
+        previousMovements.add(movement);
+
+        castlingRights &= ~castlingRightsLost(movement.getOrigin()) & ~castlingRightsLost(movement.getDestination());
+
+        enPassant = null;
+        if (movement.getPiece() instanceof Pawn &&
+                Math.abs(movement.getDestination().getX() - movement.getOrigin().getX()) == 2) {
+            enPassant = new Position((movement.getDestination().getX() + movement.getOrigin().getX()) / 2, movement.getOrigin().getY());
+        }
+
+        turn = (turn + 1) % 2;
+    }
+
+    // castling rights that are lost when a piece moves from or to the given square
+    private static int castlingRightsLost(Position position) {
+        if (position.getX() == 0) {
+            switch (position.getY()) {
+                case 0: return WHITE_QUEEN_SIDE;
+                case 4: return WHITE_KING_SIDE | WHITE_QUEEN_SIDE;
+                case 7: return WHITE_KING_SIDE;
+            }
+        } else if (position.getX() == BOARD_SIZE - 1) {
+            switch (position.getY()) {
+                case 0: return BLACK_QUEEN_SIDE;
+                case 4: return BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+                case 7: return BLACK_KING_SIDE;
+            }
+        }
+        return 0;
+    }
+
+    // gives castling rights to every king and rook that are still in their starting squares
+    public void resetCastlingRights() {
+        castlingRights = 0;
+        for (Color color : turnColors) {
+            int x = color == Color.WHITE ? 0 : BOARD_SIZE - 1;
+            Piece king = board[x][4];
+            if (!(king instanceof King) || king.getColor() != color) {
+                continue;
+            }
+            Piece rook = board[x][BOARD_SIZE - 1];
+            if (rook instanceof Rook && rook.getColor() == color) {
+                castlingRights |= color == Color.WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+            }
+            rook = board[x][0];
+            if (rook instanceof Rook && rook.getColor() == color) {
+                castlingRights |= color == Color.WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+            }
+        }
+    }
+
+    // return moves as strings along with previous moves to keep track and display
+    @Override
+    public String toString() {
+        final StringBuilder answer = new StringBuilder();
+        for (Movement movement : previousMovements) {
+            answer.append(movement);
+        }
+        return answer.toString();
+    }
+
+    // take string and display on board
+    public String toStringBoard() {
+        final StringBuilder answer = new StringBuilder();
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] == null) {
+                    answer.append(" ");
+                } else {
+                    answer.append(board[i][j]);
+                }
+            }
+        }
+
+        return answer.toString();
+    }
+
+    // checks if moving will result in a check, or castling out of or through a check
+    public boolean isCheckAfterMove(final Movement movement) {
+        BitBoard bitBoard = toBitBoard();
+        return !MoveGenerator.isLegal(bitBoard, Move.fromMovement(bitBoard, movement));
+    }
+
+    //Check if an enemy piece does check to player playing
+    public boolean isCheck() {
+        return toBitBoard().isCheck();
+    }
+
+    // bitboard of the squares with a piece on them, square x * 8 + y for board[x][y]
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    // returns the position of the piece on the board, null if it is not on it
+    public Position getPiecePosition(final Piece piece) {
+        final Position position = piecePositions[piece.getColor().ordinal()].get(piece);
+        return position == null ? null : position.clone();
+    }
+
+    // the pieces of the given color still on the board
+    public Set<Piece> getPieces(final Color color) {
+        return Collections.unmodifiableSet(piecePositions[color.ordinal()].keySet());
+    }
+
+    // puts the piece on the square, null to empty it, replacing whatever piece was there
+    public void setPiece(final Position position, final Piece piece) {
+        final Piece previous = board[position.getX()][position.getY()];
+        if (previous != null && position.equals(piecePositions[previous.getColor().ordinal()].get(previous))) {
+            piecePositions[previous.getColor().ordinal()].remove(previous);
+        }
+        board[position.getX()][position.getY()] = piece;
+        final long square = 1L << (position.getX() * BOARD_SIZE + position.getY());
+        if (piece != null) {
+            piecePositions[piece.getColor().ordinal()].put(piece, position.clone());
+            occupancy |= square;
+        } else {
+            occupancy &= ~square;
+        }
+    }
+
+    // moves the piece on the origin to the destination, capturing whatever piece was there
+    public void movePiece(final Position origin, final Position destination) {
+        final Piece piece = board[origin.getX()][origin.getY()];
+        setPiece(origin, null);
+        setPiece(destination, piece);
+    }
+
+    // an array of a generic type can only be created raw
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Piece, Position>[] newPiecePositions() {
+        Map<Piece, Position>[] piecePositions = new Map[turnColors.length];
+        for (int color = 0; color < turnColors.length; color++) {
+            piecePositions[color] = new IdentityHashMap<>();
+        }
+        return piecePositions;
+    }
+
+    // finds the square of every piece again after the board has been filled in directly
+    private void indexPieces() {
+        piecePositions = newPiecePositions();
+        occupancy = 0;
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] != null) {
+                    piecePositions[board[i][j].getColor().ordinal()].put(board[i][j], new Position(i, j));
+                    occupancy |= 1L << (i * BOARD_SIZE + j);
+                }
+            }
+        }
+    }
+
+    // creates default board with pieces in default position, i.e. the starting point for both black and white
+    public void loadDefaultBoard() {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                board[i][j] = null;
+            }
+        }
+
+        board[0][0] = new Rook(Color.WHITE);
+        board[0][1] = new Knight(Color.WHITE);
+        board[0][2] = new Bishop(Color.WHITE);
+        board[0][3] = new Queen(Color.WHITE);
+        board[0][4] = new King(Color.WHITE);
+        board[0][5] = new Bishop(Color.WHITE);
+        board[0][6] = new Knight(Color.WHITE);
+        board[0][7] = new Rook(Color.WHITE);
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board[1][i] = new Pawn(Color.WHITE);
+        }
+
+        board[7][0] = new Rook(Color.BLACK);
+        board[7][1] = new Knight(Color.BLACK);
+        board[7][2] = new Bishop(Color.BLACK);
+        board[7][3] = new Queen(Color.BLACK);
+        board[7][4] = new King(Color.BLACK);
+        board[7][5] = new Bishop(Color.BLACK);
+        board[7][6] = new Knight(Color.BLACK);
+        board[7][7] = new Rook(Color.BLACK);
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            board[6][i] = new Pawn(Color.BLACK);
+        }
+
+        previousMovements.clear();
+        turn = 0;
+        enPassant = null;
+        indexPieces();
+        resetCastlingRights();
+    }
+
+    // saves the positions of all pieces and which player's turn it is
+    public void saveToFile(PrintWriter output) {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                if (board[i][j] == null) {
+                    output.print(EMPTY);
+                } else if (board[i][j].getColor() == Color.WHITE) {
+                    output.print(board[i][j].getAlgebraicNotationName().toUpperCase());
+                } else if (board[i][j].getColor() == Color.BLACK) {
+                    output.print(board[i][j].getAlgebraicNotationName().toLowerCase());
+                }
+            }
+            output.println();
+        }
+        output.println(getTurn());
+    }
+
+    // loads the positions of all pieces and which player's turn it is, leaving the scanner on the line after the turn
+    public void loadFromFile(Scanner scanner) throws Exception {
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            String line = scanner.nextLine();
+            // throws an exception if the file has more lines than the valid board size
+            if (line.length() != BOARD_SIZE) {
+                throw new Exception("Invalid file chosen");
+            }
+
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                Piece newPiece = null;
+                Color color = (Character.isUpperCase(line.charAt(j))) ? Color.WHITE : Color.BLACK;
+                // assigns each piece to its position according to the piece's name (Q, K, R, B, P, N) N is knight and K is king
+                switch (Character.toUpperCase(line.charAt(j)) + "") {
+                    case Pawn.pieceName:
+                        newPiece = new Pawn(color);
+                        break;
+                    case Knight.ANN:
+                        newPiece = new Knight(color);
+                        break;
+                    case Bishop.ANN:
+                        newPiece = new Bishop(color);
+                        break;
+                    case Rook.ANN:
+                        newPiece = new Rook(color);
+                        break;
+                    case Queen.ANN:
+                        newPiece = new Queen(color);
+                        break;
+                    case King.ANN:
+                        newPiece = new King(color);
+                        break;
+                }
+                board[i][j] = newPiece;
+            }
+        }
+        // setting the turn to either player1, player 2 or AI
+        setTurn(scanner.nextInt());
+        scanner.nextLine();
+
+        previousMovements.clear();
+        enPassant = null;
+        indexPieces();
+        resetCastlingRights();
+    }
+
+    // array of pieces on a board
+    public Piece[][] getBoard() {
+        return board;
+    }
+
+    // set board size with array of pieces
+    public void setBoard(Piece[][] board) {
+        this.board = board;
+        indexPieces();
+    }
+
+    // returns list of all movements previously conducted
+    public ArrayList<Movement> getPreviousMovements() {
+        return previousMovements;
+    }
+
+    // ignore
+    public void setPreviousMovements(ArrayList<Movement> previousMovements) {
+        this.previousMovements = previousMovements;
+    }
+
+    // get whose turn it is
+    public int getTurn() {
+        return turn;
+    }
+
+    // set turn of players playing
+    public void setTurn(int turn) {
+        this.turn = turn;
+    }
+
+    // gets the castling rights still available, see WHITE_KING_SIDE and the like
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    // sets the castling rights still available
+    public void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    // returns if the king of the given color can still castle to the given side
+    public boolean hasCastlingRight(Color color, boolean kingSide) {
+        int right;
+        if (color == Color.WHITE) {
+            right = kingSide ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE;
+        } else {
+            right = kingSide ? BLACK_KING_SIDE : BLACK_QUEEN_SIDE;
+        }
+        return (castlingRights & right) != 0;
+    }
+
+    // gets the square a pawn can capture on en passant, null if none
+    public Position getEnPassant() {
+        return enPassant;
+    }
+
+    // sets the square a pawn can capture on en passant
+    public void setEnPassant(Position enPassant) {
+        this.enPassant = enPassant;
+    }
+}
@@ -1,6 +1,7 @@
 package com.chess;
 
 import com.chess.piece.King;
+import com.chess.piece.Piece;
 
 import java.util.ArrayList;
 
@@ -12,20 +13,20 @@ public class GameResult {
 
     private boolean hasMovementsAvailable;
 
-    private Board board;
+    private BoardState board;
 
     private int amountOfKings = 0;
 
     // checks if any kings are in a check state
-    public GameResult(boolean isCheck, boolean hasMovementsAvailable, Board board) {
+    public GameResult(boolean isCheck, boolean hasMovementsAvailable, BoardState board) {
         this.isCheck = isCheck;
         this.hasMovementsAvailable = hasMovementsAvailable;
         this.board = board;
 
 
-        for (int i = 0; i < board.BOARD_SIZE; i++){
-            for (int j = 0; j < board.BOARD_SIZE; j++) {
-                if (board.getBoard()[i][j] instanceof King){
+        for (Color color : BoardState.turnColors) {
+            for (Piece piece : board.getPieces(color)) {
+                if (piece instanceof King){
                     ++amountOfKings;
                 }
             }
@@ -22,7 +22,7 @@ public class Movement {
     private boolean isEnd = false;
 
     // if invalid turn occurs then end the movement
-    public Movement(Board board, String movement) {
+    public Movement(BoardState board, String movement) {
         if (INVALID_TURN.equals(movement)){
             isEnd = true;
             return;
@@ -63,11 +63,15 @@ public class Movement {
             }else if (promotedToChar.equals(Rook.ANN)){
                 promotedTo = new Rook(piece.getColor());
             }
+        } else if (piece instanceof Pawn && destination.getX() == (piece.getColor().equals(Color.WHITE) ? 7 : 0)) {
+            // a pawn reaching the last row without saying what it becomes is promoted to a queen
+            isPromoted = true;
+            promotedTo = new Queen(piece.getColor());
         }
 
         // checks for enPassant and allows for capturing through the method
         isCapture = board.getBoard()[destination.getX()][destination.getY()] != null ||
-                (this.piece instanceof Pawn && !board.getPreviousMovements().isEmpty() && ((Pawn) this.piece).isEnPassant(this, board.getPreviousMovements().get(board.getPreviousMovements().size() - 1)));
+                (this.piece instanceof Pawn && ((Pawn) this.piece).isEnPassant(board, this));
     }
 
     public boolean isEnd() {
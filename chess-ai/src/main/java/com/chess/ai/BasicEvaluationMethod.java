@@ -1,18 +1,37 @@
 package com.chess.ai;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Bitboards;
 import com.chess.piece.*;
 
 public class BasicEvaluationMethod implements EvaluationMethod{
 
-    final int MAX_DISTANCE_TO_CENTER = 8; // max distance to center
+    static final int MAX_DISTANCE_TO_CENTER = 8; // max distance to center
+
+    // the material counts this many times more than the position of the pieces
+    public static final int MATERIAL_WEIGHT = 1000;
+
+    // value of each piece type of the BitBoard, in the same order as BitBoard.PAWN to BitBoard.KING
+    static final int[] PIECE_VALUES = {PieceType.PAWN.value, PieceType.KNIGHT.value, PieceType.BISHOP.value,
+            PieceType.ROOK.value, PieceType.QUEEN.value, PieceType.KING.value};
+
+    // bonus for a white piece standing on each square, the closer to the center the better
+    static final int[] CENTER_BONUS = new int[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int distanceToCenter = Math.abs(Bitboards.columnOf(square) - 4) + Math.abs(Bitboards.rowOf(square) - 4);
+            CENTER_BONUS[square] = MAX_DISTANCE_TO_CENTER - distanceToCenter;
+        }
+    }
 
     @Override
-    public double evaluateBoard(Board board, int turn) {
+    public double evaluateBoard(BoardState board, int turn) {
         /**
          * Evaluates the material value first and multiplies by
-         * 100 to give some extra weight to it.
+         * MATERIAL_WEIGHT to give some extra weight to it.
          */
         double answer = 0;
         final Piece[][] realBoard = board.getBoard();
@@ -22,7 +41,7 @@ public class BasicEvaluationMethod implements EvaluationMethod{
                 if (piece == null){
                     continue;
                 }
-                answer += piece.getValue() * (piece.getColor() == Color.WHITE ? 1 : -1) * 1000 ;
+                answer += piece.getValue() * (piece.getColor() == Color.WHITE ? 1 : -1) * MATERIAL_WEIGHT;
                 int distanceToCenter = Math.abs(j - 4) + Math.abs(i - 4);
 
                 answer += (piece.getColor() == Color.WHITE ? MAX_DISTANCE_TO_CENTER - distanceToCenter : distanceToCenter - MAX_DISTANCE_TO_CENTER); // let's force to put the pieces in the center of the board
@@ -31,6 +50,26 @@ public class BasicEvaluationMethod implements EvaluationMethod{
 
 
 
+        return answer;
+    }
+
+    // value of a piece type of the BitBoard, in the same units as the evaluation
+    public static int pieceValue(int type) {
+        return PIECE_VALUES[type] * MATERIAL_WEIGHT;
+    }
+
+    // same evaluation as above done on the bitboards, positive values are good for white
+    @Override
+    public int evaluateBoard(BitBoard board, int turn) {
+        int answer = 0;
+        for (int type = BitBoard.PAWN; type <= BitBoard.KING; type++) {
+            for (long white = board.getPieces(BitBoard.WHITE, type); white != 0; white &= white - 1) {
+                answer += PIECE_VALUES[type] * MATERIAL_WEIGHT + CENTER_BONUS[Long.numberOfTrailingZeros(white)];
+            }
+            for (long black = board.getPieces(BitBoard.BLACK, type); black != 0; black &= black - 1) {
+                answer -= PIECE_VALUES[type] * MATERIAL_WEIGHT + CENTER_BONUS[Long.numberOfTrailingZeros(black)];
+            }
+        }
         return answer;
     }
 }
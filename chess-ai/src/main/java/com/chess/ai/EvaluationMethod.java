@@ -1,8 +1,11 @@
 package com.chess.ai;
 
-import com.chess.Board;
+import com.chess.BoardState;
+import com.chess.bitboard.BitBoard;
 
 public interface EvaluationMethod {
 
-    double evaluateBoard(final Board board, final int turn);
+    double evaluateBoard(final BoardState board, final int turn);
+
+    int evaluateBoard(final BitBoard board, final int turn);
 }
@@ -0,0 +1,143 @@
+package com.chess.ai;
+
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Move;
+import com.chess.bitboard.MoveList;
+import com.chess.bitboard.MoveStack;
+
+/**
+ * This class sorts the movements of a node so the best ones are searched first, which is what lets alpha-beta
+ * cut the rest: first the movement the transposition table found best, then captures and promotions from the most
+ * valuable victim taken by the least valuable attacker, then the killer movements, quiet movements that caused a
+ * cutoff in another node of the same ply, and last the rest of quiet movements by how often they caused a cutoff
+ * anywhere, the history.
+ * Movements are scored once and picked one at a time, as a cutoff usually comes before the list is sorted.
+ * **/
+public class MoveOrderer {
+
+    // value of each piece type when ordering captures, in the same order as BitBoard.PAWN to BitBoard.KING
+    private static final int[] ORDER_VALUES = {1, 3, 3, 5, 9, 10};
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int TACTICAL_SCORE = 1 << 28;
+    private static final int FIRST_KILLER_SCORE = 1 << 27;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+
+    // history scores are halved once one gets here, so they stay below the killers and recent cutoffs weigh more
+    private static final int MAX_HISTORY = 1 << 20;
+
+    private static final int KILLERS_PER_PLY = 2;
+
+    private final int[][] scores = new int[MoveStack.MAX_PLY][MoveList.MAX_MOVES];
+
+    private final int[][] killers = new int[MoveStack.MAX_PLY][KILLERS_PER_PLY];
+
+    // indexed by the color moving, the origin and the destination
+    private final int[][][] history = new int[2][64][64];
+
+    // scores the movements of the node at the given ply, hashMove being the best movement known for it if any
+    public void scoreMoves(BitBoard board, MoveList moves, int ply, int hashMove) {
+        final int[] plyScores = scores[ply];
+        final int[] plyKillers = killers[ply];
+        final int turn = board.getTurn();
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            if (move == hashMove) {
+                plyScores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isTactical(move)) {
+                plyScores[i] = TACTICAL_SCORE + tacticalScore(board, move);
+            } else if (move == plyKillers[0]) {
+                plyScores[i] = FIRST_KILLER_SCORE;
+            } else if (move == plyKillers[1]) {
+                plyScores[i] = SECOND_KILLER_SCORE;
+            } else {
+                plyScores[i] = history[turn][Move.from(move)][Move.to(move)];
+            }
+        }
+    }
+
+    // swaps the best of the movements not picked yet into the index and returns it
+    public int nextMove(MoveList moves, int ply, int index) {
+        final int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        final int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            final int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return move;
+    }
+
+    // checks if the movement is one of the killers of the ply
+    public boolean isKiller(int ply, int move) {
+        return killers[ply][0] == move || killers[ply][1] == move;
+    }
+
+    // a quiet movement caused a cutoff, the deeper the search below it the more it counts
+    public void addCutoff(int turn, int move, int ply, int depth) {
+        if (Move.isTactical(move)) {
+            return;
+        }
+        final int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        final int[] fromHistory = history[turn][Move.from(move)];
+        fromHistory[Move.to(move)] += depth * depth;
+        if (fromHistory[Move.to(move)] >= MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    // forgets the killers, which belong to the plies of the position searched before
+    public void clearKillers() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+    }
+
+    // the position searched next is this many plies below the one searched before, so the killers move up as many
+    // plies, staying at the same distance from the positions they were found in
+    public void shiftKillers(int plies) {
+        for (int ply = 0; ply < killers.length; ply++) {
+            final int from = ply + plies;
+            killers[ply][0] = from < killers.length ? killers[from][0] : Move.NONE;
+            killers[ply][1] = from < killers.length ? killers[from][1] : Move.NONE;
+        }
+    }
+
+    // halves the history, keeping what was learned but letting newer cutoffs count more
+    public void ageHistory() {
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+
+    // most valuable victim first, and for the same victim the least valuable attacker first
+    private static int tacticalScore(BitBoard board, int move) {
+        int gain = 0;
+        if (Move.isEnPassant(move)) {
+            gain = ORDER_VALUES[BitBoard.PAWN];
+        } else if (Move.isCapture(move)) {
+            gain = ORDER_VALUES[BitBoard.typeOf(board.getPiece(Move.to(move)))];
+        }
+        if (Move.isPromotion(move)) {
+            gain += ORDER_VALUES[Move.promotion(move)] - ORDER_VALUES[BitBoard.PAWN];
+        }
+        return gain * 16 - ORDER_VALUES[BitBoard.typeOf(board.getPiece(Move.from(move)))];
+    }
+}
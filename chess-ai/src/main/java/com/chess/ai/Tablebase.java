@@ -0,0 +1,317 @@
+package com.chess.ai;
+
+import com.chess.bitboard.BitBoard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class holds the perfect result of every position of an ending with few pieces, its material, i.e. KQK for a
+ * king and a queen against a king or KRKB for a king and a rook against a king and a bishop, the stronger side always
+ * white. The result of each position is one byte: DRAW, INVALID for positions that cannot happen in a game, or the
+ * number of plies to checkmate, won by the player to move if odd and lost if even, stored as MATE_CODE + plies.
+ * The positions are numbered by the index function from the squares of the pieces: first the white king, then the
+ * black king, then the rest of the pieces of white and of black, in the order the material names them. Mirroring
+ * the board does not change the result, so the white king is always mirrored into the a1-d1-d4 triangle, 10 squares,
+ * or with pawns, which only move one way, into the columns a to d, 32 squares. The other pieces take 6 bits each:
+ *
+ *   index = ((king slot * 64 + square of the second piece) * 64 + square of the third piece) ...
+ *
+ * The file has the result of every index with white to move followed by the result of every index with black to
+ * move, and is mapped into memory, so the operating system only reads the parts the search looks at.
+ * The tables know nothing of castling, en passant or the fifty movements rule.
+ * **/
+public final class Tablebase {
+
+    // not in the tables, only returned by Tablebases.probe
+    public static final int NOT_FOUND = -1;
+
+    // not decided yet, only while generating, written as a draw
+    static final int UNKNOWN = 0;
+
+    public static final int DRAW = 1;
+
+    // two pieces on the same square, a pawn on the first or last row or the player not to move in check
+    public static final int INVALID = 2;
+
+    // checkmate, the player to move has lost, the codes above are checkmates that many plies away
+    public static final int MATE_CODE = 3;
+
+    // the longest checkmate a code can hold
+    public static final int MAX_PLIES = 0xFF - MATE_CODE;
+
+    public static final String EXTENSION = ".tb";
+
+    // the most pieces a table can have, the kings included, so its index fits an int
+    public static final int MAX_PIECES = 5;
+
+    // the piece types as the material names them, from the strongest
+    static final String PIECE_ORDER = "QRBNP";
+    static final int[] PIECE_ORDER_TYPES = {BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT, BitBoard.PAWN};
+
+    private static final String PIECE_NAMES = "PNBRQK";
+
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 0};
+
+    // the a1-d1-d4 triangle the white king is mirrored into when there are no pawns
+    private static final int[] TRIANGLE = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] TRIANGLE_SLOT = new int[64];
+
+    static {
+        for (int slot = 0; slot < TRIANGLE.length; slot++) {
+            TRIANGLE_SLOT[TRIANGLE[slot]] = slot;
+        }
+    }
+
+    private final String material;
+
+    // the material as a number, see signature
+    private final long signature;
+
+    // the piece on each place of the index
+    private final int[] pieces;
+
+    private final boolean pawns;
+
+    // positions with each player to move
+    private final int size;
+
+    // the results, only read with absolute gets
+    private final ByteBuffer results;
+
+    Tablebase(String material, ByteBuffer results) {
+        this.material = material;
+        this.pieces = piecesOf(material);
+        if (pieces.length > MAX_PIECES) {
+            throw new IllegalArgumentException("Invalid tablebase " + material + ", more than " + MAX_PIECES + " pieces");
+        }
+        this.signature = signature(material);
+        this.pawns = material.indexOf('P') >= 0;
+        this.size = (pawns ? 32 : TRIANGLE.length) << (6 * (pieces.length - 1));
+        this.results = results;
+        if (results != null && results.capacity() != 2 * size) {
+            throw new IllegalArgumentException("Invalid tablebase " + material + ", " + results.capacity() + " bytes");
+        }
+    }
+
+    // maps the table in the file, named after its material
+    public static Tablebase open(File file) throws IOException {
+        final String material = file.getName().substring(0, file.getName().length() - EXTENSION.length());
+        // the mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new Tablebase(material, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public String getMaterial() {
+        return material;
+    }
+
+    long getSignature() {
+        return signature;
+    }
+
+    // positions with each player to move
+    public int getSize() {
+        return size;
+    }
+
+    int[] getPieces() {
+        return pieces;
+    }
+
+    boolean hasPawns() {
+        return pawns;
+    }
+
+    // the code of the position given by the square of each piece, in the order of the index
+    public int probe(int[] squares, int turn) {
+        return results.get(turn * size + index(squares)) & 0xFF;
+    }
+
+    // the index of the position, mirroring the board so the white king is on one of the squares the index keeps
+    int index(int[] squares) {
+        int king = squares[0];
+        int mirror = 0;
+        if ((king & 7) > 3) {
+            mirror ^= 7;
+        }
+        if (!pawns && (king >>> 3) > 3) {
+            mirror ^= 56;
+        }
+        king ^= mirror;
+        // below the diagonal, the board is mirrored along it too
+        final boolean transpose = !pawns && (king >>> 3) > (king & 7);
+        int index = pawns ? (king >>> 3) * 4 + (king & 7) : TRIANGLE_SLOT[transpose ? transpose(king) : king];
+        for (int i = 1; i < pieces.length; i++) {
+            final int square = squares[i] ^ mirror;
+            index = (index << 6) | (transpose ? transpose(square) : square);
+        }
+        return index;
+    }
+
+    // the squares of the position of the index, the inverse of index for the positions it keeps
+    void decode(int index, int[] squares) {
+        for (int i = pieces.length - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = pawns ? (index / 4) * 8 + index % 4 : TRIANGLE[index];
+    }
+
+    // the index of the position mirrored along the a1-h8 diagonal, which is kept apart from it when the white king
+    // stands on the diagonal, or the index itself if it is not
+    int diagonalIndex(int index) {
+        final int shift = 6 * (pieces.length - 1);
+        final int king = pawns ? -1 : TRIANGLE[index >>> shift];
+        if (pawns || (king >>> 3) != (king & 7)) {
+            return index;
+        }
+        int answer = index >>> shift;
+        for (int i = pieces.length - 2; i >= 0; i--) {
+            answer = (answer << 6) | transpose((index >>> (6 * i)) & 63);
+        }
+        return answer;
+    }
+
+    private static int transpose(int square) {
+        return ((square & 7) << 3) | (square >>> 3);
+    }
+
+    public static boolean isWin(int code) {
+        return code >= MATE_CODE && (code - MATE_CODE) % 2 == 1;
+    }
+
+    public static boolean isLoss(int code) {
+        return code >= MATE_CODE && (code - MATE_CODE) % 2 == 0;
+    }
+
+    // plies to checkmate of a win or a loss
+    public static int plies(int code) {
+        return code - MATE_CODE;
+    }
+
+    // the material of the table with these pieces, the stronger side as white, i.e. KQK for the pieces Q and none
+    static String material(String whitePieces, String blackPieces) {
+        final String white = sortPieces(whitePieces);
+        final String black = sortPieces(blackPieces);
+        return compareSides(white, black) >= 0 ? "K" + white + "K" + black : "K" + black + "K" + white;
+    }
+
+    // positive if the first pieces are stronger, by value, then by number, then by the strongest piece
+    static int compareSides(String first, String second) {
+        return compareSides(sideSignature(first), sideSignature(second));
+    }
+
+    // the same for the pieces given as side signatures
+    static int compareSides(int first, int second) {
+        if (value(first) != value(second)) {
+            return value(first) - value(second);
+        }
+        if (count(first) != count(second)) {
+            return count(first) - count(second);
+        }
+        // the queens are in the highest bits, so the side with more of the strongest piece they differ in is larger
+        return Integer.compare(first, second);
+    }
+
+    private static int value(int side) {
+        int value = 0;
+        for (int i = 0; i < PIECE_ORDER_TYPES.length; i++) {
+            value += countOf(side, i) * PIECE_VALUES[PIECE_ORDER_TYPES[i]];
+        }
+        return value;
+    }
+
+    private static int count(int side) {
+        int count = 0;
+        for (int i = 0; i < PIECE_ORDER_TYPES.length; i++) {
+            count += countOf(side, i);
+        }
+        return count;
+    }
+
+    // how many pieces of the type at the place of PIECE_ORDER the side signature has
+    private static int countOf(int side, int place) {
+        return (side >>> (4 * (PIECE_ORDER_TYPES.length - 1 - place))) & 0xF;
+    }
+
+    // the pieces of a player other than the king as a number, 4 bits with the count of each type in the order of
+    // PIECE_ORDER, the queens in the highest ones, so it is found for a board without building any name
+    static int sideSignature(BitBoard board, int color) {
+        int side = 0;
+        for (int i = 0; i < PIECE_ORDER_TYPES.length; i++) {
+            side = (side << 4) | Long.bitCount(board.getPieces(color, PIECE_ORDER_TYPES[i]));
+        }
+        return side;
+    }
+
+    // the same for the pieces named as in the materials
+    static int sideSignature(String pieces) {
+        int side = 0;
+        for (char piece : pieces.toCharArray()) {
+            side += 1 << (4 * (PIECE_ORDER_TYPES.length - 1 - PIECE_ORDER.indexOf(piece)));
+        }
+        return side;
+    }
+
+    // the material as a number from the side signatures of the stronger and the weaker player
+    static long signature(int strongSide, int weakSide) {
+        return ((long) strongSide << 32) | weakSide;
+    }
+
+    // the same for the material named, the stronger side as white
+    static long signature(String material) {
+        final int blackKing = material.indexOf('K', 1);
+        return signature(sideSignature(material.substring(1, blackKing)), sideSignature(material.substring(blackKing + 1)));
+    }
+
+    private static String sortPieces(String pieces) {
+        final StringBuilder answer = new StringBuilder();
+        for (char piece : PIECE_ORDER.toCharArray()) {
+            for (char c : pieces.toCharArray()) {
+                if (c == piece) {
+                    answer.append(c);
+                }
+            }
+        }
+        return answer.toString();
+    }
+
+    // the pieces of the material in the order of the index, as BitBoard pieces
+    static int[] piecesOf(String material) {
+        final int blackKing = material.indexOf('K', 1);
+        if (!material.startsWith("K") || blackKing < 0) {
+            throw new IllegalArgumentException("Invalid material " + material);
+        }
+        final String white = material.substring(1, blackKing);
+        final String black = material.substring(blackKing + 1);
+        final int[] answer = new int[2 + white.length() + black.length()];
+        answer[0] = BitBoard.piece(BitBoard.WHITE, BitBoard.KING);
+        answer[1] = BitBoard.piece(BitBoard.BLACK, BitBoard.KING);
+        int i = 2;
+        for (char piece : white.toCharArray()) {
+            answer[i++] = BitBoard.piece(BitBoard.WHITE, typeOf(piece));
+        }
+        for (char piece : black.toCharArray()) {
+            answer[i++] = BitBoard.piece(BitBoard.BLACK, typeOf(piece));
+        }
+        return answer;
+    }
+
+    private static int typeOf(char piece) {
+        final int type = PIECE_NAMES.indexOf(piece);
+        if (type < 0 || type == BitBoard.KING) {
+            throw new IllegalArgumentException("Invalid piece " + piece);
+        }
+        return type;
+    }
+
+    // the name of a BitBoard piece type in the materials
+    static char nameOf(int type) {
+        return PIECE_NAMES.charAt(type);
+    }
+}
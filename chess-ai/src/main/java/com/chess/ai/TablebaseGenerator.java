@@ -0,0 +1,490 @@
+package com.chess.ai;
+
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Bitboards;
+import com.chess.bitboard.Move;
+import com.chess.bitboard.MoveGenerator;
+import com.chess.bitboard.MoveList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class makes the tablebases of the endings with up to four pieces by retrograde analysis, see Tablebase:
+ *
+ *   java -cp tree-based-chess-ai.jar com.chess.ai.TablebaseGenerator Tablebases KQK KRK KPK KBNK
+ *
+ * writes KQK.tb, KRK.tb, KPK.tb and KBNK.tb into the Tablebases folder, and first the tables they turn into by a
+ * capture or a promotion if the folder does not have them yet. Every position is first looked at on its own: the
+ * checkmates, the stalemates and the movements leaving the table, whose results are already known from the smaller
+ * tables. Then, starting from the checkmates, every iteration goes back one movement from the positions decided in
+ * the one before: a position one movement before a lost one is won, and a position all of whose movements lead to won
+ * ones is lost, one ply further from checkmate than the longest of them. What is never decided is a draw.
+ * Every pass over the positions is split into chunks searched by all the processors at once.
+ * **/
+public final class TablebaseGenerator {
+
+    private static final int MAX_PIECES = 4;
+
+    // positions of a chunk of a pass
+    private static final int CHUNK = 1 << 14;
+
+    private static final byte CANDIDATE = 1;
+    private static final byte LOST_LATER = 2;
+
+    private static final String[] DEFAULT_MATERIALS = {"KQK", "KRK", "KPK", "KBNK"};
+
+    private final File directory;
+
+    private final Tablebases tablebases;
+
+    private final ForkJoinPool pool;
+
+    private TablebaseGenerator(File directory, Tablebases tablebases, int threads) {
+        this.directory = directory;
+        this.tablebases = tablebases;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    // makes the table of the material and of the ones it turns into, unless the folder already has them
+    private void generate(String material) throws IOException {
+        if (tablebases.contains(material) || isDraw(material)) {
+            return;
+        }
+        for (String smaller : smallerMaterials(material)) {
+            generate(smaller);
+        }
+        new Generation(material).run();
+    }
+
+    // the tables a capture or a promotion can turn the material into
+    private static List<String> smallerMaterials(String material) {
+        final int blackKing = material.indexOf('K', 1);
+        final String white = material.substring(1, blackKing);
+        final String black = material.substring(blackKing + 1);
+        final List<String> answer = new ArrayList<>();
+        for (int i = 0; i < white.length(); i++) {
+            answer.add(Tablebase.material(white.substring(0, i) + white.substring(i + 1), black));
+            if (white.charAt(i) == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    answer.add(Tablebase.material(white.substring(0, i) + promotion + white.substring(i + 1), black));
+                }
+            }
+        }
+        for (int i = 0; i < black.length(); i++) {
+            answer.add(Tablebase.material(white, black.substring(0, i) + black.substring(i + 1)));
+            if (black.charAt(i) == 'P') {
+                for (char promotion : "QRBN".toCharArray()) {
+                    answer.add(Tablebase.material(white, black.substring(0, i) + promotion + black.substring(i + 1)));
+                }
+            }
+        }
+        return answer;
+    }
+
+    // the materials Tablebases knows are draws without a table
+    private static boolean isDraw(String material) {
+        final String pieces = material.replace("K", "");
+        return pieces.isEmpty() || pieces.equals("B") || pieces.equals("N");
+    }
+
+    /**
+     * The arrays of the table being made, and the passes over them.
+     * **/
+    private final class Generation {
+
+        private final String material;
+
+        private final Tablebase table;
+
+        private final int[] pieces;
+
+        private final int size;
+
+        // the result of every position, as in the file
+        private final byte[] values;
+
+        // the result the movements leaving the table give the player to move, when it is not decided yet: a draw, a
+        // loss if the player has nothing better, or a win if the movements in the table are not faster
+        private final byte[] exits;
+
+        // CANDIDATE for the positions one of whose movements was just decided as a win for the opponent, to be checked
+        // for a loss, LOST_LATER for the ones lost as late as their exits
+        private final byte[] candidates;
+
+        // the farthest checkmate of the exits, the iterations cannot stop before it
+        private final AtomicInteger maxExitPlies = new AtomicInteger();
+
+        private Generation(String material) {
+            this.material = material;
+            this.table = new Tablebase(material, null);
+            this.pieces = table.getPieces();
+            this.size = table.getSize();
+            this.values = new byte[2 * size];
+            this.exits = new byte[2 * size];
+            this.candidates = new byte[2 * size];
+        }
+
+        private void run() throws IOException {
+            final long start = System.currentTimeMillis();
+            pool.invoke(new Pass(new Visitor() {
+                @Override
+                void visit(Scratch scratch, int position) {
+                    initialize(scratch, position);
+                }
+            }, 0, 2 * size));
+
+            int plies = 0;
+            while (true) {
+                final int frontier = plies;
+                final int code = Tablebase.MATE_CODE + frontier;
+                final LongAdder decided = new LongAdder();
+                // the exits won at this ply count, unless the movements in the table were faster, and the losses
+                // waiting for the exit lost last
+                pool.invoke(new Pass(new Visitor() {
+                    @Override
+                    void visit(Scratch scratch, int position) {
+                        if (values[position] == Tablebase.UNKNOWN && (exits[position] & 0xFF) == code &&
+                                (Tablebase.isWin(code) || candidates[position] == LOST_LATER)) {
+                            values[position] = (byte) code;
+                        }
+                        if ((values[position] & 0xFF) == code) {
+                            decided.increment();
+                        }
+                    }
+                }, 0, 2 * size));
+                if (decided.sum() == 0 && frontier >= maxExitPlies.get()) {
+                    break;
+                }
+                if (frontier + 1 > Tablebase.MAX_PLIES) {
+                    throw new IllegalStateException(material + " has checkmates too far for a byte");
+                }
+                pool.invoke(new Pass(new Visitor() {
+                    @Override
+                    void visit(Scratch scratch, int position) {
+                        if ((values[position] & 0xFF) == code) {
+                            unmove(scratch, position, frontier + 1);
+                        }
+                    }
+                }, 0, 2 * size));
+                pool.invoke(new Pass(new Visitor() {
+                    @Override
+                    void visit(Scratch scratch, int position) {
+                        if (candidates[position] == CANDIDATE) {
+                            candidates[position] = 0;
+                            verifyLoss(scratch, position, frontier + 1);
+                        }
+                    }
+                }, 0, 2 * size));
+                plies++;
+            }
+
+            // the positions never decided are draws
+            final long[] counts = new long[4];
+            int longest = 0;
+            for (int position = 0; position < 2 * size; position++) {
+                if (values[position] == Tablebase.UNKNOWN) {
+                    values[position] = Tablebase.DRAW;
+                }
+                final int code = values[position] & 0xFF;
+                if (code == Tablebase.INVALID) {
+                    counts[0]++;
+                } else if (code == Tablebase.DRAW) {
+                    counts[1]++;
+                } else {
+                    counts[Tablebase.isWin(code) ? 2 : 3]++;
+                    longest = Math.max(longest, Tablebase.plies(code));
+                }
+            }
+
+            final File file = new File(directory, material + Tablebase.EXTENSION);
+            try (FileOutputStream output = new FileOutputStream(file)) {
+                output.write(values);
+            }
+            tablebases.add(Tablebase.open(file));
+            System.out.println(material + ": " + counts[2] + " won, " + counts[3] + " lost, " + counts[1] +
+                    " drawn, " + counts[0] + " invalid positions, longest checkmate " + longest + " plies, " +
+                    (System.currentTimeMillis() - start) + " ms, written to " + file);
+        }
+
+        // decides the position from its own movements: checkmate, stalemate, invalid, or what its exits give
+        private void initialize(Scratch scratch, int position) {
+            final int turn = position / size;
+            final int[] squares = scratch.squares;
+            table.decode(position % size, squares);
+            long occupancy = 0;
+            for (int i = 0; i < pieces.length; i++) {
+                final int row = Bitboards.rowOf(squares[i]);
+                if ((occupancy & (1L << squares[i])) != 0 ||
+                        (BitBoard.typeOf(pieces[i]) == BitBoard.PAWN && (row == 0 || row == 7))) {
+                    values[position] = Tablebase.INVALID;
+                    return;
+                }
+                occupancy |= 1L << squares[i];
+            }
+            final BitBoard board = scratch.board;
+            board.setPosition(pieces, squares, pieces.length, turn);
+            if (board.isKingAttacked(turn ^ 1)) {
+                values[position] = Tablebase.INVALID;
+                return;
+            }
+
+            final MoveList moves = scratch.moves;
+            moves.clear();
+            MoveGenerator.generateMoves(board, moves);
+            if (moves.isEmpty()) {
+                values[position] = board.isCheck() ? (byte) Tablebase.MATE_CODE : (byte) Tablebase.DRAW;
+                return;
+            }
+            int bestWin = Integer.MAX_VALUE;
+            int longestLoss = -1;
+            boolean draw = false;
+            boolean inTable = false;
+            for (int i = 0; i < moves.size(); i++) {
+                final int move = moves.get(i);
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    inTable = true;
+                    continue;
+                }
+                board.makeMove(move);
+                final int code = tablebases.probe(board, scratch.probeSquares);
+                board.unmakeMove(move);
+                if (code == Tablebase.NOT_FOUND) {
+                    throw new IllegalStateException("No tablebase for a movement of " + material + " to " +
+                            board.toFen() + " " + Move.toString(move));
+                }
+                if (Tablebase.isLoss(code)) {
+                    bestWin = Math.min(bestWin, Tablebase.plies(code) + 1);
+                } else if (Tablebase.isWin(code)) {
+                    longestLoss = Math.max(longestLoss, Tablebase.plies(code) + 1);
+                } else {
+                    draw = true;
+                }
+            }
+            final int exit;
+            if (bestWin != Integer.MAX_VALUE) {
+                exit = bestWin;
+            } else if (draw) {
+                exit = -1;
+            } else if (longestLoss >= 0) {
+                exit = longestLoss;
+            } else {
+                return;
+            }
+            if (exit > Tablebase.MAX_PLIES) {
+                throw new IllegalStateException(material + " has checkmates too far for a byte");
+            }
+            if (!inTable) {
+                // every movement leaves the table, so the exits are the result
+                values[position] = (byte) (exit < 0 ? Tablebase.DRAW : Tablebase.MATE_CODE + exit);
+                return;
+            }
+            exits[position] = (byte) (exit < 0 ? Tablebase.DRAW : Tablebase.MATE_CODE + exit);
+            if (exit > 0) {
+                maxExitPlies.accumulateAndGet(exit, Math::max);
+            }
+        }
+
+        // goes back every movement that could have led to the position, decided at plies - 1: the positions before a
+        // loss are won at plies, the ones before a win may be lost
+        private void unmove(Scratch scratch, int position, int plies) {
+            final int turn = position / size;
+            final int mover = turn ^ 1;
+            final int[] squares = scratch.squares;
+            table.decode(position % size, squares);
+            final boolean lost = Tablebase.isLoss(values[position] & 0xFF);
+            long occupancy = 0;
+            for (int i = 0; i < pieces.length; i++) {
+                occupancy |= 1L << squares[i];
+            }
+            final int[] previous = scratch.childSquares;
+            for (int i = 0; i < pieces.length; i++) {
+                if (BitBoard.colorOf(pieces[i]) != mover) {
+                    continue;
+                }
+                final int to = squares[i];
+                long origins;
+                switch (BitBoard.typeOf(pieces[i])) {
+                    case BitBoard.PAWN:
+                        origins = pawnOrigins(mover, to, occupancy);
+                        break;
+                    case BitBoard.KNIGHT:
+                        origins = Bitboards.KNIGHT_ATTACKS[to];
+                        break;
+                    case BitBoard.BISHOP:
+                        origins = Bitboards.bishopAttacks(to, occupancy);
+                        break;
+                    case BitBoard.ROOK:
+                        origins = Bitboards.rookAttacks(to, occupancy);
+                        break;
+                    case BitBoard.QUEEN:
+                        origins = Bitboards.queenAttacks(to, occupancy);
+                        break;
+                    default:
+                        origins = Bitboards.KING_ATTACKS[to];
+                        break;
+                }
+                for (origins &= ~occupancy; origins != 0; origins &= origins - 1) {
+                    System.arraycopy(squares, 0, previous, 0, pieces.length);
+                    previous[i] = Long.numberOfTrailingZeros(origins);
+                    final int index = table.index(previous);
+                    reach(mover * size + index, lost, plies);
+                    // both halves of a position on the diagonal came before
+                    if (table.diagonalIndex(index) != index) {
+                        reach(mover * size + table.diagonalIndex(index), lost, plies);
+                    }
+                }
+            }
+        }
+
+        // a position one movement before a lost one is won, one before a won one may be lost
+        private void reach(int before, boolean lost, int plies) {
+            if (values[before] != Tablebase.UNKNOWN) {
+                return;
+            }
+            if (lost) {
+                values[before] = (byte) (Tablebase.MATE_CODE + plies);
+            } else if (candidates[before] == 0) {
+                candidates[before] = CANDIDATE;
+            }
+        }
+
+        // squares a pawn of the color could have come from to the square, the two squares jump only from its row
+        private long pawnOrigins(int color, int to, long occupancy) {
+            final int step = color == BitBoard.WHITE ? -8 : 8;
+            final int from = to + step;
+            final int row = Bitboards.rowOf(from);
+            if (row == 0 || row == 7 || (occupancy & (1L << from)) != 0) {
+                return 0;
+            }
+            long origins = 1L << from;
+            if (row == (color == BitBoard.WHITE ? 2 : 5) && (occupancy & (1L << (from + step))) == 0) {
+                origins |= 1L << (from + step);
+            }
+            return origins;
+        }
+
+        // the position is lost if every movement in the table leads to a win of the opponent and the exits give no
+        // draw, at plies if the longest of them is the one decided last, later if not
+        private void verifyLoss(Scratch scratch, int position, int plies) {
+            if (values[position] != Tablebase.UNKNOWN || exits[position] == Tablebase.DRAW ||
+                    Tablebase.isWin(exits[position] & 0xFF)) {
+                return;
+            }
+            final int turn = position / size;
+            final int[] squares = scratch.squares;
+            table.decode(position % size, squares);
+            final BitBoard board = scratch.board;
+            board.setPosition(pieces, squares, pieces.length, turn);
+            final MoveList moves = scratch.moves;
+            moves.clear();
+            MoveGenerator.generateMoves(board, moves);
+
+            int longest = exits[position] == 0 ? 0 : Tablebase.plies(exits[position] & 0xFF);
+            final int[] child = scratch.childSquares;
+            for (int i = 0; i < moves.size(); i++) {
+                final int move = moves.get(i);
+                if (Move.isCapture(move) || Move.isPromotion(move)) {
+                    continue;
+                }
+                System.arraycopy(squares, 0, child, 0, pieces.length);
+                for (int j = 0; j < pieces.length; j++) {
+                    if (child[j] == Move.from(move)) {
+                        child[j] = Move.to(move);
+                        break;
+                    }
+                }
+                final int code = values[(turn ^ 1) * size + table.index(child)] & 0xFF;
+                // a win decided in this iteration is not a frontier yet, it is checked again in the next one
+                if (!Tablebase.isWin(code) || Tablebase.plies(code) >= plies) {
+                    return;
+                }
+                longest = Math.max(longest, Tablebase.plies(code) + 1);
+            }
+            if (longest == plies) {
+                values[position] = (byte) (Tablebase.MATE_CODE + plies);
+            } else if (longest > plies) {
+                // an exit is lost later than every movement in the table, decided when its plies come
+                candidates[position] = LOST_LATER;
+            }
+        }
+    }
+
+    /**
+     * What a thread needs to look at positions, so a chunk allocates nothing per position.
+     * **/
+    private static final class Scratch {
+        private final BitBoard board = new BitBoard();
+        private final MoveList moves = new MoveList();
+        private final int[] squares = new int[MAX_PIECES];
+        private final int[] childSquares = new int[MAX_PIECES];
+        private final int[] probeSquares = new int[Tablebase.MAX_PIECES];
+    }
+
+    /**
+     * What a pass does with each position.
+     * **/
+    private abstract static class Visitor {
+        abstract void visit(Scratch scratch, int position);
+    }
+
+    /**
+     * Visits the positions of a range, splitting it into chunks for the threads of the pool.
+     * **/
+    private static final class Pass extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Visitor visitor;
+        private final int from;
+        private final int to;
+
+        private Pass(Visitor visitor, int from, int to) {
+            this.visitor = visitor;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new Pass(visitor, from, middle), new Pass(visitor, middle, to));
+                return;
+            }
+            final Scratch scratch = new Scratch();
+            for (int position = from; position < to; position++) {
+                visitor.visit(scratch, position);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        final File directory = new File(args.length > 0 ? args[0] : Tablebases.DEFAULT_DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Cannot create " + directory);
+            System.exit(1);
+        }
+        final String[] materials = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_MATERIALS;
+        final TablebaseGenerator generator = new TablebaseGenerator(directory, Tablebases.open(directory),
+                Runtime.getRuntime().availableProcessors());
+        for (String material : materials) {
+            final String upper = material.toUpperCase();
+            if (Tablebase.piecesOf(upper).length > MAX_PIECES) {
+                System.out.println("Only tables of up to " + MAX_PIECES + " pieces can be made: " + material);
+                System.exit(1);
+            }
+            final int blackKing = upper.indexOf('K', 1);
+            generator.generate(Tablebase.material(upper.substring(1, blackKing), upper.substring(blackKing + 1)));
+        }
+        generator.pool.shutdown();
+    }
+}
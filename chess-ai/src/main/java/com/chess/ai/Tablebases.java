@@ -0,0 +1,167 @@
+package com.chess.ai;
+
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Bitboards;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the tablebases of a folder, one file per material, see Tablebase, and looks up the positions of
+ * any of them whichever side has the stronger pieces. Without a single table it still knows a king alone, or with
+ * a single bishop or knight, cannot checkmate. The tables are made with TablebaseGenerator.
+ * **/
+public final class Tablebases {
+
+    // where the game looks for the tables, next to the preset boards
+    public static final String DEFAULT_DIRECTORY = "Tablebases";
+
+    // the folders opened so far by their path, so the files are only mapped once
+    private static final Map<String, Tablebases> OPENED = new HashMap<>();
+
+    // a king alone against a king with a single bishop or knight, as side signatures, see Tablebase.sideSignature
+    private static final int LONE_BISHOP = Tablebase.sideSignature("B");
+    private static final int LONE_KNIGHT = Tablebase.sideSignature("N");
+
+    // the signatures of the materials of the tables, sorted, and the table of each, replaced together whenever a table
+    // is added, so a probe finds its table with a binary search and without taking a lock or allocating
+    private volatile Index index = new Index(new long[0], new Tablebase[0]);
+
+    // positions with more pieces are not in any table, three for the draws known without tables
+    private volatile int maxPieces = 3;
+
+    // opens every table in the folder, or returns the ones already opened from it
+    public static synchronized Tablebases open(File directory) throws IOException {
+        final String path = directory.getCanonicalPath();
+        Tablebases tablebases = OPENED.get(path);
+        if (tablebases == null) {
+            tablebases = new Tablebases();
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(Tablebase.EXTENSION)) {
+                        tablebases.add(Tablebase.open(file));
+                    }
+                }
+            }
+            OPENED.put(path, tablebases);
+        }
+        return tablebases;
+    }
+
+    // the tables in DEFAULT_DIRECTORY, null if there are none
+    public static Tablebases openDefault() {
+        final File directory = new File(DEFAULT_DIRECTORY);
+        if (!directory.isDirectory()) {
+            return null;
+        }
+        try {
+            final Tablebases tablebases = open(directory);
+            return tablebases.size() > 0 ? tablebases : null;
+        } catch (IOException e) {
+            throw new IllegalStateException("Tablebases not loaded from " + directory, e);
+        }
+    }
+
+    // adds the table, replacing the one of the same material if there was one
+    public synchronized void add(Tablebase table) {
+        final Index current = index;
+        int place = Arrays.binarySearch(current.signatures, table.getSignature());
+        final long[] signatures;
+        final Tablebase[] tables;
+        if (place >= 0) {
+            signatures = current.signatures;
+            tables = current.tables.clone();
+        } else {
+            place = -place - 1;
+            signatures = new long[current.signatures.length + 1];
+            tables = new Tablebase[signatures.length];
+            System.arraycopy(current.signatures, 0, signatures, 0, place);
+            System.arraycopy(current.signatures, place, signatures, place + 1, current.signatures.length - place);
+            System.arraycopy(current.tables, 0, tables, 0, place);
+            System.arraycopy(current.tables, place, tables, place + 1, current.tables.length - place);
+            signatures[place] = table.getSignature();
+        }
+        tables[place] = table;
+        maxPieces = Math.max(maxPieces, table.getPieces().length);
+        index = new Index(signatures, tables);
+    }
+
+    public boolean contains(String material) {
+        return find(Tablebase.signature(material)) != null;
+    }
+
+    // number of tables
+    public int size() {
+        return index.tables.length;
+    }
+
+    // the table of the material with the signature, null if there is none
+    private Tablebase find(long signature) {
+        final Index current = index;
+        final int place = Arrays.binarySearch(current.signatures, signature);
+        return place < 0 ? null : current.tables[place];
+    }
+
+    // the code of the position, see Tablebase, or NOT_FOUND if it has no table or can castle or capture en passant.
+    // squares is where the squares of the pieces are written, at least Tablebase.MAX_PIECES long, so each thread
+    // probing passes its own and nothing is allocated
+    public int probe(BitBoard board, int[] squares) {
+        if (Long.bitCount(board.getOccupancy()) > maxPieces || board.getCastlingRights() != 0) {
+            return Tablebase.NOT_FOUND;
+        }
+        final int enPassant = board.getEnPassant();
+        if (enPassant != BitBoard.NO_SQUARE && (Bitboards.PAWN_ATTACKS[board.getTurn() ^ 1][enPassant] &
+                board.getPieces(board.getTurn(), BitBoard.PAWN)) != 0) {
+            return Tablebase.NOT_FOUND;
+        }
+        final int white = Tablebase.sideSignature(board, BitBoard.WHITE);
+        final int black = Tablebase.sideSignature(board, BitBoard.BLACK);
+        final int pieces = white | black;
+        if ((white == 0 || black == 0) && (pieces == 0 || pieces == LONE_BISHOP || pieces == LONE_KNIGHT)) {
+            return Tablebase.DRAW;
+        }
+
+        // with black the stronger the board is turned around, mirroring the rows and swapping the colors
+        final boolean flip = Tablebase.compareSides(white, black) < 0;
+        final Tablebase table = find(flip ? Tablebase.signature(black, white) : Tablebase.signature(white, black));
+        if (table == null) {
+            return Tablebase.NOT_FOUND;
+        }
+        final int strong = flip ? BitBoard.BLACK : BitBoard.WHITE;
+        final int mirror = flip ? 56 : 0;
+        squares[0] = Long.numberOfTrailingZeros(board.getPieces(strong, BitBoard.KING)) ^ mirror;
+        squares[1] = Long.numberOfTrailingZeros(board.getPieces(1 - strong, BitBoard.KING)) ^ mirror;
+        int i = 2;
+        for (int side = 0; side < 2; side++) {
+            final int color = side == 0 ? strong : 1 - strong;
+            for (int type : Tablebase.PIECE_ORDER_TYPES) {
+                long bits = board.getPieces(color, type);
+                while (bits != 0) {
+                    squares[i++] = Long.numberOfTrailingZeros(bits) ^ mirror;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        final int code = table.probe(squares, flip ? 1 - board.getTurn() : board.getTurn());
+        return code == Tablebase.INVALID ? Tablebase.NOT_FOUND : code;
+    }
+
+    /**
+     * The tables sorted by the signature of their material, see Tablebase.signature.
+     * **/
+    private static final class Index {
+
+        private final long[] signatures;
+
+        private final Tablebase[] tables;
+
+        Index(long[] signatures, Tablebase[] tables) {
+            this.signatures = signatures;
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.chess.ai;
+
+import com.chess.bitboard.Move;
+
+import java.util.Arrays;
+
+/**
+ * This class remembers the result of the positions already searched, keyed by the Zobrist hash of the board, so a
+ * position reached again through another order of movements is not searched twice.
+ * It has a fixed number of entries, a power of two so the index is the low bits of the hash, kept in two arrays of
+ * longs: the data of the entry packed as bits 0-19 the best move, bits 20-26 the depth, bits 27-28 the bound,
+ * bits 29-31 the age and bits 32-63 the score, and the hash XOR the data, to tell apart positions falling on the same
+ * entry.
+ * A score is exact only if it fell between alpha and beta, otherwise it is a bound of the real score.
+ * Several threads can share the table without locks: two threads writing the same entry at once may leave the hash
+ * of one with the data of the other, but then the XOR no longer gives back the hash and the entry is just not found.
+ * **/
+public class TranspositionTable {
+
+    // the score is the real score of the position
+    public static final int EXACT = 1;
+    // the search failed high, the real score is at least the score
+    public static final int LOWER_BOUND = 2;
+    // the search failed low, the real score is at most the score
+    public static final int UPPER_BOUND = 3;
+
+    // what probe returns when the position is not in the table, no stored entry has a bound of 0
+    public static final long NO_ENTRY = 0;
+
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+    private static final int MOVE_MASK = 0xFFFFF;
+    private static final int DEPTH_SHIFT = 20;
+    private static final int DEPTH_MASK = 0x7F;
+    private static final int BOUND_SHIFT = 27;
+    private static final int BOUND_MASK = 0x3;
+    private static final int AGE_SHIFT = 29;
+    private static final int AGE_MASK = 0x7;
+    private static final int SCORE_SHIFT = 32;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    // increased every search, so entries left by older searches are replaced first
+    private int age = 0;
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    // the number of entries is the largest power of two that fits in the given size
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Invalid transposition table size " + megabytes);
+        }
+        final int entries = Integer.highestOneBit((int) Math.min(1 << 30, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    // the entry of the position, NO_ENTRY if it has not been searched or has been replaced since
+    public long probe(long key) {
+        final int index = (int) key & mask;
+        final long entry = data[index];
+        return (keys[index] ^ entry) == key && bound(entry) != 0 ? entry : NO_ENTRY;
+    }
+
+    // keeps the result of a search, unless the entry holds a deeper search of another position from this same search
+    public void store(long key, int score, int depth, int bound, int move) {
+        final int index = (int) key & mask;
+        final long entry = data[index];
+        final boolean samePosition = (keys[index] ^ entry) == key;
+        if (!samePosition && bound(entry) != 0 && age(entry) == (age & AGE_MASK) && depth < depth(entry)) {
+            return;
+        }
+        // a search that found no best move keeps the one found before, it is still the best guess
+        if (move == Move.NONE && samePosition) {
+            move = move(entry);
+        }
+        final long newEntry = pack(score, depth, bound, move, age);
+        keys[index] = key ^ newEntry;
+        data[index] = newEntry;
+    }
+
+    // marks the entries stored from now on as newer than the ones stored until now
+    public void newSearch() {
+        age++;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        age = 0;
+    }
+
+    public int getSize() {
+        return keys.length;
+    }
+
+    private static long pack(int score, int depth, int bound, int move, int age) {
+        return ((long) score << SCORE_SHIFT) |
+                ((long) (age & AGE_MASK) << AGE_SHIFT) |
+                ((long) bound << BOUND_SHIFT) |
+                ((long) Math.max(0, Math.min(depth, DEPTH_MASK)) << DEPTH_SHIFT) |
+                (move & MOVE_MASK);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >> SCORE_SHIFT);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    public static int move(long entry) {
+        return (int) entry & MOVE_MASK;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+}
@@ -0,0 +1,522 @@
+package com.chess.bitboard;
+
+import com.chess.BoardState;
+import com.chess.Color;
+import com.chess.Position;
+import com.chess.piece.*;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a chess position as bitboards, one long per piece type and color plus the occupancy of each
+ * color, so the AI can generate moves and evaluate positions without walking a grid of Piece objects.
+ * It can be converted to and from the Piece[][] used by BoardState, the loaders and the GUI.
+ * **/
+public class BitBoard {
+
+    // colors, same as the turn in BoardState
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // piece types, a piece is color * PIECE_TYPES + type
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    public static final int PIECE_TYPES = 6;
+
+    public static final int NO_PIECE = -1;
+    public static final int NO_SQUARE = -1;
+
+    // movements that can be taken back before the undo stack grows
+    private static final int MAX_UNDO = 512;
+
+    public static final String[] PIECE_NAMES = {Pawn.pieceName, Knight.ANN, Bishop.ANN, Rook.ANN, Queen.ANN, King.ANN};
+
+    // castling rights kept after a piece moves from or to each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            CASTLING_MASK[square] = ~0;
+        }
+        CASTLING_MASK[0] = ~BoardState.WHITE_QUEEN_SIDE;
+        CASTLING_MASK[4] = ~(BoardState.WHITE_KING_SIDE | BoardState.WHITE_QUEEN_SIDE);
+        CASTLING_MASK[7] = ~BoardState.WHITE_KING_SIDE;
+        CASTLING_MASK[56] = ~BoardState.BLACK_QUEEN_SIDE;
+        CASTLING_MASK[60] = ~(BoardState.BLACK_KING_SIDE | BoardState.BLACK_QUEEN_SIDE);
+        CASTLING_MASK[63] = ~BoardState.BLACK_KING_SIDE;
+    }
+
+    private final long[] pieces = new long[2 * PIECE_TYPES];
+    private final long[] colorOccupancy = new long[2];
+    private long occupancy;
+
+    // piece on each square, NO_PIECE if empty
+    private final int[] squares = new int[64];
+
+    private int turn;
+    private int castlingRights;
+    private int enPassant = NO_SQUARE;
+    private int halfmoveClock;
+
+    // Zobrist hash of the position, kept up to date as pieces are put and removed and movements are made
+    private long hash;
+
+    // what unmakeMove needs to take back each of the movements performed, the last one on top, and the hash of the
+    // position before each of them
+    private int[] undoStack = new int[MAX_UNDO];
+    private long[] hashStack = new long[MAX_UNDO];
+    private int undoSize;
+
+    public BitBoard() {
+        Arrays.fill(squares, NO_PIECE);
+    }
+
+    // builds the bitboards from the pieces of a board, where board[x][y] is square x * 8 + y
+    public static BitBoard fromPieces(Piece[][] board, int turn) {
+        BitBoard bitBoard = new BitBoard();
+        for (int x = 0; x < BoardState.BOARD_SIZE; x++) {
+            for (int y = 0; y < BoardState.BOARD_SIZE; y++) {
+                Piece piece = board[x][y];
+                if (piece != null) {
+                    bitBoard.put(Bitboards.square(x, y), piece(piece.getColor().ordinal(), typeOf(piece)));
+                }
+            }
+        }
+        bitBoard.turn = turn;
+        bitBoard.hash = Zobrist.hash(bitBoard);
+        return bitBoard;
+    }
+
+    // replaces the position with the pieces given on the squares given, the first count of each, with no castling
+    // rights, no en passant and no movements to take back. Much cheaper than building a new board, for code going
+    // through millions of positions
+    public void setPosition(int[] pieceList, int[] squareList, int count, int turn) {
+        Arrays.fill(pieces, 0);
+        Arrays.fill(colorOccupancy, 0);
+        Arrays.fill(squares, NO_PIECE);
+        occupancy = 0;
+        hash = 0;
+        for (int i = 0; i < count; i++) {
+            put(squareList[i], pieceList[i]);
+        }
+        this.turn = turn;
+        castlingRights = 0;
+        enPassant = NO_SQUARE;
+        halfmoveClock = 0;
+        undoSize = 0;
+        hash = Zobrist.hash(this);
+    }
+
+    // builds the bitboards from a whole game state, including castling rights and en passant
+    public static BitBoard fromBoardState(BoardState state) {
+        BitBoard bitBoard = fromPieces(state.getBoard(), state.getTurn());
+        bitBoard.castlingRights = state.getCastlingRights();
+        Position enPassant = state.getEnPassant();
+        bitBoard.enPassant = enPassant == null ? NO_SQUARE : Bitboards.square(enPassant);
+        bitBoard.hash = Zobrist.hash(bitBoard);
+        return bitBoard;
+    }
+
+    // builds the bitboards from a position in Forsyth-Edwards Notation, i.e. the standard starting position is
+    // rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1
+    public static BitBoard fromFen(String fen) {
+        final String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN " + fen);
+        }
+        final String[] rows = fields[0].split("/");
+        if (rows.length != BoardState.BOARD_SIZE) {
+            throw new IllegalArgumentException("Invalid FEN " + fen);
+        }
+
+        BitBoard bitBoard = new BitBoard();
+        for (int i = 0; i < rows.length; i++) {
+            int x = BoardState.BOARD_SIZE - 1 - i;
+            int y = 0;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    y += c - '0';
+                    continue;
+                }
+                int type = Arrays.asList(PIECE_NAMES).indexOf(Character.toUpperCase(c) + "");
+                if (type < 0 || y >= BoardState.BOARD_SIZE) {
+                    throw new IllegalArgumentException("Invalid FEN " + fen);
+                }
+                bitBoard.put(Bitboards.square(x, y++), piece(Character.isUpperCase(c) ? WHITE : BLACK, type));
+            }
+        }
+
+        bitBoard.turn = fields[1].equals("b") ? BLACK : WHITE;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K': bitBoard.castlingRights |= BoardState.WHITE_KING_SIDE; break;
+                case 'Q': bitBoard.castlingRights |= BoardState.WHITE_QUEEN_SIDE; break;
+                case 'k': bitBoard.castlingRights |= BoardState.BLACK_KING_SIDE; break;
+                case 'q': bitBoard.castlingRights |= BoardState.BLACK_QUEEN_SIDE; break;
+            }
+        }
+        if (!fields[3].equals("-")) {
+            bitBoard.enPassant = Bitboards.square(new Position(fields[3].toLowerCase()));
+        }
+        if (fields.length > 4) {
+            bitBoard.halfmoveClock = Integer.parseInt(fields[4]);
+        }
+        bitBoard.hash = Zobrist.hash(bitBoard);
+        return bitBoard;
+    }
+
+    // the position in Forsyth-Edwards Notation
+    public String toFen() {
+        final StringBuilder answer = new StringBuilder();
+        for (int x = BoardState.BOARD_SIZE - 1; x >= 0; x--) {
+            int empty = 0;
+            for (int y = 0; y < BoardState.BOARD_SIZE; y++) {
+                int piece = squares[Bitboards.square(x, y)];
+                if (piece == NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    answer.append(empty);
+                    empty = 0;
+                }
+                String name = PIECE_NAMES[typeOf(piece)];
+                answer.append(colorOf(piece) == WHITE ? name : name.toLowerCase());
+            }
+            if (empty > 0) {
+                answer.append(empty);
+            }
+            if (x > 0) {
+                answer.append('/');
+            }
+        }
+        answer.append(turn == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            answer.append('-');
+        }
+        if ((castlingRights & BoardState.WHITE_KING_SIDE) != 0) answer.append('K');
+        if ((castlingRights & BoardState.WHITE_QUEEN_SIDE) != 0) answer.append('Q');
+        if ((castlingRights & BoardState.BLACK_KING_SIDE) != 0) answer.append('k');
+        if ((castlingRights & BoardState.BLACK_QUEEN_SIDE) != 0) answer.append('q');
+        answer.append(' ').append(enPassant == NO_SQUARE ? "-" : Bitboards.toPosition(enPassant).toString().toLowerCase());
+        answer.append(' ').append(halfmoveClock).append(" 1");
+        return answer.toString();
+    }
+
+    // creates the Piece[][] the GUI and BoardState work with
+    public Piece[][] toPieces() {
+        Piece[][] board = new Piece[BoardState.BOARD_SIZE][BoardState.BOARD_SIZE];
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != NO_PIECE) {
+                board[Bitboards.rowOf(square)][Bitboards.columnOf(square)] = newPiece(squares[square]);
+            }
+        }
+        return board;
+    }
+
+    // copies the board, which is only a few array copies, along with the movements made on it, so the copy still sees
+    // repetitions of the positions before it and can take those movements back
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard();
+        if (undoSize > copy.undoStack.length) {
+            copy.undoStack = new int[undoStack.length];
+            copy.hashStack = new long[hashStack.length];
+        }
+        System.arraycopy(undoStack, 0, copy.undoStack, 0, undoSize);
+        System.arraycopy(hashStack, 0, copy.hashStack, 0, undoSize);
+        copy.undoSize = undoSize;
+        System.arraycopy(pieces, 0, copy.pieces, 0, pieces.length);
+        System.arraycopy(colorOccupancy, 0, copy.colorOccupancy, 0, colorOccupancy.length);
+        System.arraycopy(squares, 0, copy.squares, 0, squares.length);
+        copy.occupancy = occupancy;
+        copy.turn = turn;
+        copy.castlingRights = castlingRights;
+        copy.enPassant = enPassant;
+        copy.halfmoveClock = halfmoveClock;
+        copy.hash = hash;
+        return copy;
+    }
+
+    // performs a movement, including castling, en passant and promotions, and passes the turn. What is needed to
+    // take it back with unmakeMove is kept in the undo stack
+    public void makeMove(int move) {
+        final int from = Move.from(move);
+        final int to = Move.to(move);
+        final int piece = squares[from];
+        final int color = colorOf(piece);
+        final int captured = squares[to];
+
+        pushUndo(captured);
+
+        halfmoveClock++;
+        if (captured != NO_PIECE) {
+            remove(to);
+            halfmoveClock = 0;
+        }
+        remove(from);
+        put(to, Move.isPromotion(move) ? piece(color, Move.promotion(move)) : piece);
+
+        if (typeOf(piece) == PAWN) {
+            halfmoveClock = 0;
+            if (Move.isEnPassant(move)) {
+                remove(to + (color == WHITE ? -8 : 8));
+            }
+        } else if (Move.isCastling(move)) {
+            // castling moves the rook to the square the king passed over
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            put(rookTo, squares[rookFrom]);
+            remove(rookFrom);
+        }
+
+        hash ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        hash ^= Zobrist.CASTLING[castlingRights];
+
+        if (enPassant != NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT_COLUMN[Bitboards.columnOf(enPassant)];
+        }
+        enPassant = Move.isDoublePawnPush(move) ? (from + to) / 2 : NO_SQUARE;
+        if (enPassant != NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT_COLUMN[Bitboards.columnOf(enPassant)];
+        }
+
+        turn ^= 1;
+        hash ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    // takes back the last movement performed with makeMove, which must be the one given
+    public void unmakeMove(int move) {
+        final int from = Move.from(move);
+        final int to = Move.to(move);
+        final int undo = undoStack[--undoSize];
+
+        turn ^= 1;
+        final int color = turn;
+        final int piece = squares[to];
+
+        if (Move.isCastling(move)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            put(rookFrom, squares[rookTo]);
+            remove(rookTo);
+        }
+
+        remove(to);
+        put(from, Move.isPromotion(move) ? piece(color, PAWN) : piece);
+
+        final int captured = (undo & 0xF) - 1;
+        if (Move.isEnPassant(move)) {
+            put(to + (color == WHITE ? -8 : 8), piece(color ^ 1, PAWN));
+        } else if (captured != NO_PIECE) {
+            put(to, captured);
+        }
+
+        castlingRights = (undo >>> 4) & 0xF;
+        enPassant = ((undo >>> 8) & 0x7F) - 1;
+        halfmoveClock = undo >>> 15;
+        hash = hashStack[undoSize];
+    }
+
+    // passes the turn without moving, which is not legal but tells the search how good the position is even giving
+    // the other player a free movement. It must not be made in check, and is taken back with unmakeNullMove
+    public void makeNullMove() {
+        pushUndo(NO_PIECE);
+        // the positions before the null movement cannot be repeated by a real game
+        halfmoveClock = 0;
+        if (enPassant != NO_SQUARE) {
+            hash ^= Zobrist.EN_PASSANT_COLUMN[Bitboards.columnOf(enPassant)];
+            enPassant = NO_SQUARE;
+        }
+        turn ^= 1;
+        hash ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    // takes back the null movement performed with makeNullMove
+    public void unmakeNullMove() {
+        final int undo = undoStack[--undoSize];
+        turn ^= 1;
+        enPassant = ((undo >>> 8) & 0x7F) - 1;
+        halfmoveClock = undo >>> 15;
+        hash = hashStack[undoSize];
+    }
+
+    // keeps the captured piece, castling rights, en passant square and halfmove clock packed in one int
+    private void pushUndo(int captured) {
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+            hashStack = Arrays.copyOf(hashStack, hashStack.length * 2);
+        }
+        hashStack[undoSize] = hash;
+        undoStack[undoSize++] = (captured + 1) | (castlingRights << 4) | ((enPassant + 1) << 8) | (halfmoveClock << 15);
+    }
+
+    // pieces of the given color attacking the square, with the occupancy given so sliders can see through pieces
+    public long attackersOf(int square, int byColor, long occupancy) {
+        return (Bitboards.PAWN_ATTACKS[byColor ^ 1][square] & pieces[piece(byColor, PAWN)]) |
+                (Bitboards.KNIGHT_ATTACKS[square] & pieces[piece(byColor, KNIGHT)]) |
+                (Bitboards.KING_ATTACKS[square] & pieces[piece(byColor, KING)]) |
+                (Bitboards.bishopAttacks(square, occupancy) & (pieces[piece(byColor, BISHOP)] | pieces[piece(byColor, QUEEN)])) |
+                (Bitboards.rookAttacks(square, occupancy) & (pieces[piece(byColor, ROOK)] | pieces[piece(byColor, QUEEN)]));
+    }
+
+    // checks if any piece of the given color attacks the square, looking from the square with each kind of piece
+    public boolean isSquareAttacked(int square, int byColor) {
+        return attackersOf(square, byColor, occupancy) != 0;
+    }
+
+    // square of the king of the given color, NO_SQUARE if it is not on the board
+    public int getKingSquare(int color) {
+        long king = pieces[piece(color, KING)];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    // checks if the king of the given color is attacked by an enemy piece
+    public boolean isKingAttacked(int color) {
+        int king = getKingSquare(color);
+        return king != NO_SQUARE && isSquareAttacked(king, color ^ 1);
+    }
+
+    // checks if the player whose turn it is is in check
+    public boolean isCheck() {
+        return isKingAttacked(turn);
+    }
+
+    private void put(int square, int piece) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colorOccupancy[colorOf(piece)] |= bit;
+        occupancy |= bit;
+        squares[square] = piece;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    private void remove(int square) {
+        int piece = squares[square];
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colorOccupancy[colorOf(piece)] &= ~bit;
+        occupancy &= ~bit;
+        squares[square] = NO_PIECE;
+        hash ^= Zobrist.PIECE_SQUARE[piece][square];
+    }
+
+    public static int piece(int color, int type) {
+        return color * PIECE_TYPES + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece / PIECE_TYPES;
+    }
+
+    public static int typeOf(int piece) {
+        return piece % PIECE_TYPES;
+    }
+
+    // the piece type of one of the Piece objects
+    public static int typeOf(Piece piece) {
+        if (piece instanceof Pawn) {
+            return PAWN;
+        } else if (piece instanceof Knight) {
+            return KNIGHT;
+        } else if (piece instanceof Bishop) {
+            return BISHOP;
+        } else if (piece instanceof Rook) {
+            return ROOK;
+        } else if (piece instanceof Queen) {
+            return QUEEN;
+        }
+        return KING;
+    }
+
+    // creates the Piece object for a piece
+    public static Piece newPiece(int piece) {
+        Color color = BoardState.turnColors[colorOf(piece)];
+        switch (typeOf(piece)) {
+            case PAWN:
+                return new Pawn(color);
+            case KNIGHT:
+                return new Knight(color);
+            case BISHOP:
+                return new Bishop(color);
+            case ROOK:
+                return new Rook(color);
+            case QUEEN:
+                return new Queen(color);
+            default:
+                return new King(color);
+        }
+    }
+
+    // bitboard of the pieces of one color and type
+    public long getPieces(int color, int type) {
+        return pieces[piece(color, type)];
+    }
+
+    // bitboard of all the pieces of one color
+    public long getOccupancy(int color) {
+        return colorOccupancy[color];
+    }
+
+    // bitboard of all the pieces on the board
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    // piece on the square, NO_PIECE if it is empty
+    public int getPiece(int square) {
+        return squares[square];
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    // 64 bit Zobrist hash of the position, for transposition tables, repetitions and any other cache of positions
+    public long getHash() {
+        return hash;
+    }
+
+    // checks if the position already happened since the last capture or pawn movement made on this board
+    public boolean isRepetition() {
+        final int earliest = Math.max(0, undoSize - halfmoveClock);
+        for (int i = undoSize - 2; i >= earliest; i -= 2) {
+            if (hashStack[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // one character per square like in the saved games, i.e. R for a white rook, r for a black one and . if empty
+    public String toStringBoard() {
+        final StringBuilder answer = new StringBuilder();
+        for (int square = 0; square < 64; square++) {
+            int piece = squares[square];
+            if (piece == NO_PIECE) {
+                answer.append('.');
+            } else if (colorOf(piece) == WHITE) {
+                answer.append(PIECE_NAMES[typeOf(piece)]);
+            } else {
+                answer.append(PIECE_NAMES[typeOf(piece)].toLowerCase());
+            }
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.chess.bitboard;
+
+import com.chess.Position;
+
+/**
+ * This class holds the precomputed tables and helpers to work with bitboards, a long where bit n is set when
+ * square n is occupied. Square n is row n / 8 and column n % 8, the same as board[x][y] in BoardState, so A1 is 0
+ * and H8 is 63.
+ * **/
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    // squares attacked by a knight or a king standing on each square
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+
+    // squares attacked by a pawn of each color standing on each square
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // squares strictly between two squares on the same row, column or diagonal, 0 if they are not aligned
+    public static final long[][] BETWEEN = new long[64][64];
+
+    // the whole row, column or diagonal going through two squares, 0 if they are not aligned
+    public static final long[][] LINE = new long[64][64];
+
+    private static final int[][] KNIGHT_DELTAS = {{1, -2}, {-1, -2}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {2, 1}, {2, -1}};
+    private static final int[][] KING_DELTAS = {{1, -1}, {-1, -1}, {1, 1}, {-1, 1}, {0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_DELTAS);
+            KING_ATTACKS[square] = leaperAttacks(square, KING_DELTAS);
+            PAWN_ATTACKS[BitBoard.WHITE][square] = leaperAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[BitBoard.BLACK][square] = leaperAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+            for (int[] direction : KING_DELTAS) {
+                initLines(square, direction);
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    // squares reached by jumping once with each of the deltas
+    private static long leaperAttacks(int square, int[][] deltas) {
+        long attacks = 0;
+        for (int[] delta : deltas) {
+            int x = rowOf(square) + delta[0];
+            int y = columnOf(square) + delta[1];
+            if (isOnBoard(x, y)) {
+                attacks |= 1L << square(x, y);
+            }
+        }
+        return attacks;
+    }
+
+    // fills BETWEEN and LINE for the square and every square in the direction given
+    private static void initLines(int square, int[] direction) {
+        long wholeLine = 1L << square;
+        for (int sign = -1; sign <= 1; sign += 2) {
+            int x = rowOf(square) + direction[0] * sign;
+            int y = columnOf(square) + direction[1] * sign;
+            while (isOnBoard(x, y)) {
+                wholeLine |= 1L << square(x, y);
+                x += direction[0] * sign;
+                y += direction[1] * sign;
+            }
+        }
+
+        long between = 0;
+        int x = rowOf(square) + direction[0];
+        int y = columnOf(square) + direction[1];
+        while (isOnBoard(x, y)) {
+            int other = square(x, y);
+            BETWEEN[square][other] = between;
+            LINE[square][other] = wholeLine;
+            between |= 1L << other;
+            x += direction[0];
+            y += direction[1];
+        }
+    }
+
+    // squares reached by sliding in each direction until the first occupied square, which is included
+    static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int x = rowOf(square) + direction[0];
+            int y = columnOf(square) + direction[1];
+            while (isOnBoard(x, y)) {
+                long bit = 1L << square(x, y);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // squares attacked by a rook on the given square, looked up in the magic bitboard tables
+    public static long rookAttacks(int square, long occupancy) {
+        return Magics.rookAttacks(square, occupancy);
+    }
+
+    // squares attacked by a bishop on the given square, looked up in the magic bitboard tables
+    public static long bishopAttacks(int square, long occupancy) {
+        return Magics.bishopAttacks(square, occupancy);
+    }
+
+    // squares attacked by a queen on the given square
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    public static int square(int x, int y) {
+        return x * 8 + y;
+    }
+
+    public static int square(Position position) {
+        return square(position.getX(), position.getY());
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int columnOf(int square) {
+        return square & 7;
+    }
+
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 0 && y >= 0 && x < 8 && y < 8;
+    }
+
+    public static Position toPosition(int square) {
+        return new Position(rowOf(square), columnOf(square));
+    }
+}
@@ -0,0 +1,109 @@
+package com.chess.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the magic bitboard tables for rooks and bishops. The pieces that can block a slider are multiplied
+ * by a magic number so their top bits index a precomputed table with the attacked squares, so the attacks of a
+ * slider are a single lookup whatever the pieces around it.
+ * The magic numbers are searched for when the class is loaded, with a fixed seed so they are always the same.
+ * **/
+final class Magics {
+
+    private static final int[][] ROOK_DIRECTIONS = {{0, -1}, {0, 1}, {1, 0}, {-1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    private static final long SEED = 0x5EEDC4E55L;
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int square = 0; square < 64; square++) {
+            initSquare(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS, random);
+            initSquare(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS, random);
+        }
+    }
+
+    private Magics() {
+    }
+
+    static long rookAttacks(int square, long occupancy) {
+        return ROOK_ATTACKS[square][(int) (((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_ATTACKS[square][(int) (((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    // finds a magic number for the square that maps every set of blockers to a table entry with the right attacks
+    private static void initSquare(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                   long[][] attacks, SplittableRandom random) {
+        final long mask = relevantOccupancy(square, directions);
+        final int bits = Long.bitCount(mask);
+        final int size = 1 << bits;
+
+        // every subset of the mask and the squares attacked with those blockers
+        final long[] occupancies = new long[size];
+        final long[] reference = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            reference[i] = Bitboards.slidingAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        final long[] table = new long[size];
+        final int[] usedBy = new int[size];
+        final int shift = 64 - bits;
+        for (int attempt = 1; ; attempt++) {
+            // magic numbers with few bits set work best
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (usedBy[index] != attempt) {
+                    usedBy[index] = attempt;
+                    table[index] = reference[i];
+                } else if (table[index] != reference[i]) {
+                    collision = true;
+                }
+            }
+
+            if (!collision) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = shift;
+                attacks[square] = table;
+                return;
+            }
+        }
+    }
+
+    // squares where a piece can block the slider, the last square of each ray never blocks anything behind it
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int x = Bitboards.rowOf(square) + direction[0];
+            int y = Bitboards.columnOf(square) + direction[1];
+            while (Bitboards.isOnBoard(x + direction[0], y + direction[1])) {
+                mask |= 1L << Bitboards.square(x, y);
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,118 @@
+package com.chess.bitboard;
+
+import com.chess.BoardState;
+import com.chess.Movement;
+import com.chess.Position;
+
+/**
+ * This class packs a movement on a BitBoard into a single int so the AI never allocates objects for its moves:
+ * bits 0-5 are the origin square, bits 6-11 the destination square, bits 12-14 the piece type a pawn is promoted
+ * to (0 if none) and bits 15-18 the flags below. Movements are only converted from and to the Movement class when
+ * they come from or go to the players.
+ * **/
+public final class Move {
+
+    // not a movement, no legal movement goes from A1 to A1
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int CASTLING = 4;
+    public static final int DOUBLE_PAWN_PUSH = 8;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int FLAGS_SHIFT = 15;
+
+    private Move() {
+    }
+
+    public static int create(int from, int to, int promotion, int flags) {
+        int promotionBits = promotion == BitBoard.NO_PIECE ? 0 : promotion;
+        return from | (to << TO_SHIFT) | (promotionBits << PROMOTION_SHIFT) | (flags << FLAGS_SHIFT);
+    }
+
+    public static int create(int from, int to, int flags) {
+        return create(from, to, BitBoard.NO_PIECE, flags);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    // the piece type a pawn is promoted to, BitBoard.NO_PIECE if it is not a promotion
+    public static int promotion(int move) {
+        int promotion = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promotion == 0 ? BitBoard.NO_PIECE : promotion;
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (flags(move) & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (flags(move) & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePawnPush(int move) {
+        return (flags(move) & DOUBLE_PAWN_PUSH) != 0;
+    }
+
+    // captures and promotions change the material on the board, the rest are quiet movements
+    public static boolean isTactical(int move) {
+        return isCapture(move) || isPromotion(move);
+    }
+
+    // converts a movement coming from the players into a move on the given board
+    public static int fromMovement(BitBoard board, Movement movement) {
+        final int from = Bitboards.square(movement.getOrigin());
+        final int to = Bitboards.square(movement.getDestination());
+        final int piece = board.getPiece(from);
+        final int promotion = movement.isPromoted() ? BitBoard.typeOf(movement.getPromotedTo()) : BitBoard.NO_PIECE;
+
+        int flags = 0;
+        if (board.getPiece(to) != BitBoard.NO_PIECE) {
+            flags |= CAPTURE;
+        }
+        if (piece != BitBoard.NO_PIECE && BitBoard.typeOf(piece) == BitBoard.PAWN) {
+            if (to == board.getEnPassant() && Bitboards.columnOf(from) != Bitboards.columnOf(to)) {
+                flags |= CAPTURE | EN_PASSANT;
+            } else if (Math.abs(to - from) == 16) {
+                flags |= DOUBLE_PAWN_PUSH;
+            }
+        } else if (piece != BitBoard.NO_PIECE && BitBoard.typeOf(piece) == BitBoard.KING && Math.abs(to - from) == 2) {
+            flags |= CASTLING;
+        }
+        return create(from, to, promotion, flags);
+    }
+
+    // converts back to a movement on the given board, which must be the board the move was generated on
+    public static Movement toMovement(BoardState board, int move) {
+        return new Movement(board, toString(move));
+    }
+
+    // the movement in the notation the players use, i.e. E7E8Q
+    public static String toString(int move) {
+        Position origin = Bitboards.toPosition(from(move));
+        Position destination = Bitboards.toPosition(to(move));
+        return "" + origin + destination + (isPromotion(move) ? BitBoard.PIECE_NAMES[promotion(move)] : "");
+    }
+}
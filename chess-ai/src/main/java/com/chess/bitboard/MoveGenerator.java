@@ -0,0 +1,213 @@
+package com.chess.bitboard;
+
+import com.chess.BoardState;
+
+/**
+ * This class generates the legal movements on a BitBoard for the player whose turn it is, including castling,
+ * en passant and promotions.
+ * Instead of trying each movement and looking for a check afterwards, the pieces giving check and the pieces pinned
+ * to the king are found once, and every movement is restricted to the squares that block or capture the check and to
+ * the line of its pin.
+ * **/
+public final class MoveGenerator {
+
+    // a pawn can be promoted to any of these, in the same order the Pawn class offers them
+    private static final int[] PROMOTIONS = {BitBoard.QUEEN, BitBoard.ROOK, BitBoard.BISHOP, BitBoard.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    // all the legal movements of the player whose turn it is
+    public static MoveList generateMoves(BitBoard board) {
+        MoveList movements = new MoveList();
+        generateMoves(board, movements);
+        return movements;
+    }
+
+    // checks if the movement is one of the legal movements of the player whose turn it is
+    public static boolean isLegal(BitBoard board, int move) {
+        return generateMoves(board).contains(move);
+    }
+
+    // adds the legal movements of the player whose turn it is to the list
+    public static void generateMoves(BitBoard board, MoveList movements) {
+        generateMoves(board, movements, false);
+    }
+
+    // adds the legal captures and promotions of the player whose turn it is to the list, or every legal movement if
+    // in check, as any of them could be the only way out
+    public static void generateTacticalMoves(BitBoard board, MoveList movements) {
+        generateMoves(board, movements, !board.isCheck());
+    }
+
+    private static void generateMoves(BitBoard board, MoveList movements, boolean tacticalOnly) {
+        final int turn = board.getTurn();
+        final int enemyColor = turn ^ 1;
+        final long own = board.getOccupancy(turn);
+        final long enemy = board.getOccupancy(enemyColor);
+        final long occupancy = board.getOccupancy();
+        final int king = board.getKingSquare(turn);
+
+        // squares a piece other than the king can move to, only those that capture or block the check if in check
+        long checkMask = ~0L;
+        long pinned = 0;
+        if (king != BitBoard.NO_SQUARE) {
+            final long checkers = board.attackersOf(king, enemyColor, occupancy);
+            if (Long.bitCount(checkers) > 1) {
+                // only the king can get out of a double check
+                addKingMoves(board, movements, king, enemyColor, ~own, enemy, occupancy);
+                return;
+            }
+            if (checkers != 0) {
+                int checker = Long.numberOfTrailingZeros(checkers);
+                checkMask = checkers | Bitboards.BETWEEN[king][checker];
+            }
+            pinned = pinnedPieces(board, king, turn, own, occupancy);
+        }
+        // squares a piece can move to, only the enemy pieces if looking for captures
+        final long targets = tacticalOnly ? enemy : ~own;
+        final long targetMask = targets & checkMask;
+
+        addPawnMoves(board, movements, turn, king, pinned, enemy, occupancy, checkMask, tacticalOnly);
+
+        for (long knights = board.getPieces(turn, BitBoard.KNIGHT) & ~pinned; knights != 0; knights &= knights - 1) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(movements, from, Bitboards.KNIGHT_ATTACKS[from] & targetMask, enemy);
+        }
+        for (long bishops = board.getPieces(turn, BitBoard.BISHOP); bishops != 0; bishops &= bishops - 1) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            addMoves(movements, from, Bitboards.bishopAttacks(from, occupancy) & targetMask & pinLine(king, from, pinned), enemy);
+        }
+        for (long rooks = board.getPieces(turn, BitBoard.ROOK); rooks != 0; rooks &= rooks - 1) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            addMoves(movements, from, Bitboards.rookAttacks(from, occupancy) & targetMask & pinLine(king, from, pinned), enemy);
+        }
+        for (long queens = board.getPieces(turn, BitBoard.QUEEN); queens != 0; queens &= queens - 1) {
+            int from = Long.numberOfTrailingZeros(queens);
+            addMoves(movements, from, Bitboards.queenAttacks(from, occupancy) & targetMask & pinLine(king, from, pinned), enemy);
+        }
+        if (king != BitBoard.NO_SQUARE) {
+            addKingMoves(board, movements, king, enemyColor, targets, enemy, occupancy);
+            if (checkMask == ~0L && !tacticalOnly) {
+                addCastlingMoves(board, movements, turn, king, occupancy);
+            }
+        }
+    }
+
+    // own pieces that are the only piece between the king and an enemy slider looking at it
+    private static long pinnedPieces(BitBoard board, int king, int turn, long own, long occupancy) {
+        final int enemyColor = turn ^ 1;
+        final long enemyQueens = board.getPieces(enemyColor, BitBoard.QUEEN);
+        long snipers = (Bitboards.rookAttacks(king, 0) & (board.getPieces(enemyColor, BitBoard.ROOK) | enemyQueens)) |
+                (Bitboards.bishopAttacks(king, 0) & (board.getPieces(enemyColor, BitBoard.BISHOP) | enemyQueens));
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.BETWEEN[king][Long.numberOfTrailingZeros(snipers)] & occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    // a pinned piece can only move along the line joining it to its king
+    private static long pinLine(int king, int from, long pinned) {
+        return (pinned & (1L << from)) == 0 ? ~0L : Bitboards.LINE[king][from];
+    }
+
+    // tacticalOnly leaves out the pushes that do not promote
+    private static void addPawnMoves(BitBoard board, MoveList movements, int turn, int king, long pinned, long enemy,
+                                     long occupancy, long checkMask, boolean tacticalOnly) {
+        final int forward = turn == BitBoard.WHITE ? 8 : -8;
+        final int startRow = turn == BitBoard.WHITE ? 1 : 6;
+        final int lastRow = turn == BitBoard.WHITE ? 7 : 0;
+        final int enPassantSquare = board.getEnPassant();
+
+        for (long pawns = board.getPieces(turn, BitBoard.PAWN); pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long targets = Bitboards.PAWN_ATTACKS[turn][from] & enemy;
+            int to = from + forward;
+            if (to >= 0 && to < 64 && (occupancy & (1L << to)) == 0 && (!tacticalOnly || Bitboards.rowOf(to) == lastRow)) {
+                targets |= 1L << to;
+                if (!tacticalOnly && Bitboards.rowOf(from) == startRow && (occupancy & (1L << (to + forward))) == 0) {
+                    targets |= 1L << (to + forward);
+                }
+            }
+            targets &= checkMask & pinLine(king, from, pinned);
+
+            for (; targets != 0; targets &= targets - 1) {
+                int target = Long.numberOfTrailingZeros(targets);
+                int flags = 0;
+                if ((enemy & (1L << target)) != 0) {
+                    flags = Move.CAPTURE;
+                } else if (Math.abs(target - from) == 16) {
+                    flags = Move.DOUBLE_PAWN_PUSH;
+                }
+                if (Bitboards.rowOf(target) == lastRow) {
+                    for (int promotion : PROMOTIONS) {
+                        movements.add(Move.create(from, target, promotion, flags));
+                    }
+                } else {
+                    movements.add(Move.create(from, target, flags));
+                }
+            }
+
+            // en passant removes two pieces from the row of the king, which no mask describes, so it is tried out
+            if (enPassantSquare != BitBoard.NO_SQUARE && (Bitboards.PAWN_ATTACKS[turn][from] & (1L << enPassantSquare)) != 0) {
+                int move = Move.create(from, enPassantSquare, Move.CAPTURE | Move.EN_PASSANT);
+                if (leavesKingSafe(board, move)) {
+                    movements.add(move);
+                }
+            }
+        }
+    }
+
+    // the king can move to any square not attacked once it has left its square, so sliders see through it
+    // targets are the squares the king may move to if they are safe
+    private static void addKingMoves(BitBoard board, MoveList movements, int king, int enemyColor, long kingTargets,
+                                     long enemy, long occupancy) {
+        final long occupancyWithoutKing = occupancy & ~(1L << king);
+        for (long targets = Bitboards.KING_ATTACKS[king] & kingTargets; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (board.attackersOf(to, enemyColor, occupancyWithoutKing) == 0) {
+                movements.add(Move.create(king, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : 0));
+            }
+        }
+    }
+
+    // the king can castle if it keeps the right to, the squares up to the rook are empty, and it is not in check
+    // nor passes over or lands on an attacked square
+    private static void addCastlingMoves(BitBoard board, MoveList movements, int turn, int from, long occupancy) {
+        final int kingSide = turn == BitBoard.WHITE ? BoardState.WHITE_KING_SIDE : BoardState.BLACK_KING_SIDE;
+        final int queenSide = turn == BitBoard.WHITE ? BoardState.WHITE_QUEEN_SIDE : BoardState.BLACK_QUEEN_SIDE;
+        final int enemyColor = turn ^ 1;
+        if ((board.getCastlingRights() & kingSide) != 0 &&
+                (occupancy & (3L << (from + 1))) == 0 &&
+                !board.isSquareAttacked(from + 1, enemyColor) &&
+                !board.isSquareAttacked(from + 2, enemyColor)) {
+            movements.add(Move.create(from, from + 2, Move.CASTLING));
+        }
+        if ((board.getCastlingRights() & queenSide) != 0 &&
+                (occupancy & (7L << (from - 3))) == 0 &&
+                !board.isSquareAttacked(from - 1, enemyColor) &&
+                !board.isSquareAttacked(from - 2, enemyColor)) {
+            movements.add(Move.create(from, from - 2, Move.CASTLING));
+        }
+    }
+
+    private static void addMoves(MoveList movements, int from, long targets, long enemy) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            movements.add(Move.create(from, to, (enemy & (1L << to)) != 0 ? Move.CAPTURE : 0));
+        }
+    }
+
+    // performs the movement, checks the king of the player who moved and takes the movement back
+    private static boolean leavesKingSafe(BitBoard board, int move) {
+        final int turn = board.getTurn();
+        board.makeMove(move);
+        boolean safe = !board.isKingAttacked(turn);
+        board.unmakeMove(move);
+        return safe;
+    }
+}
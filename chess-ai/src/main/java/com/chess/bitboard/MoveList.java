@@ -0,0 +1,67 @@
+package com.chess.bitboard;
+
+import java.util.Random;
+
+/**
+ * This class is a list of moves encoded as ints, see Move, backed by an array that is reused as moves are cleared
+ * and added again.
+ * **/
+public class MoveList {
+
+    // no position has more legal moves than this
+    public static final int MAX_MOVES = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(MAX_MOVES);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // puts the moves in a random order
+    public void shuffle(Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.chess.bitboard;
+
+/**
+ * This class holds one MoveList for each ply of a search, allocated once and reused by every node at that ply, so
+ * generating the movements of a node does not allocate anything.
+ * A node at a given ply only uses its own list, and the lists of its children are the ones of the next plies, so a
+ * list is never overwritten while it is still being walked through.
+ * **/
+public class MoveStack {
+
+    // no search goes deeper than this many plies
+    public static final int MAX_PLY = 128;
+
+    private final MoveList[] movesPerPly;
+
+    public MoveStack() {
+        this(MAX_PLY);
+    }
+
+    public MoveStack(int maxPly) {
+        movesPerPly = new MoveList[maxPly];
+        for (int ply = 0; ply < maxPly; ply++) {
+            movesPerPly[ply] = new MoveList();
+        }
+    }
+
+    // fills the list of the ply with the legal movements of the board and returns it
+    public MoveList generateMoves(BitBoard board, int ply) {
+        final MoveList moves = movesPerPly[ply];
+        moves.clear();
+        MoveGenerator.generateMoves(board, moves);
+        return moves;
+    }
+
+    // fills the list of the ply with the legal captures and promotions of the board, every movement if in check
+    public MoveList generateTacticalMoves(BitBoard board, int ply) {
+        final MoveList moves = movesPerPly[ply];
+        moves.clear();
+        MoveGenerator.generateTacticalMoves(board, moves);
+        return moves;
+    }
+
+    // the list of the ply, as it was last filled
+    public MoveList get(int ply) {
+        return movesPerPly[ply];
+    }
+
+    public int getMaxPly() {
+        return movesPerPly.length;
+    }
+}
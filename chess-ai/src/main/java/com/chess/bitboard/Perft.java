@@ -0,0 +1,171 @@
+package com.chess.bitboard;
+
+import com.chess.BoardState;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class counts the positions reached after every sequence of legal movements up to a depth, known as perft,
+ * to check the move generator against known results and measure how fast it is. It runs without the GUI:
+ *
+ *   java -cp tree-based-chess-ai.jar com.chess.bitboard.Perft suite
+ *   java -cp tree-based-chess-ai.jar com.chess.bitboard.Perft 5 [FEN | file.chess]
+ *
+ * The first checks every position of the suite below and fails if any count is wrong, the second prints the count
+ * under each movement of the position (the standard starting position if none is given), known as divide.
+ * The movements of the root are counted in parallel, one task per movement.
+ * **/
+public final class Perft {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PRESET_BOARDS = "Preset Boards";
+
+    // position as a FEN or a preset board file, depth and the number of positions at that depth
+    private static final String[][] SUITE = {
+            {START_POSITION, "5", "4865609"},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "6", "11030083"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "5", "15833292"},
+            {"r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1", "5", "15833292"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+            {PRESET_BOARDS + "/castling.chess", "4", "314346"},
+            {PRESET_BOARDS + "/checkmate.chess", "4", "5757"},
+            {PRESET_BOARDS + "/enpassant.chess", "5", "15793"},
+            {PRESET_BOARDS + "/promotion.chess", "5", "33413"},
+            {PRESET_BOARDS + "/stalemate.chess", "6", "55865"},
+            {PRESET_BOARDS + "/custom.chess", "4", "197281"},
+    };
+
+    private Perft() {
+    }
+
+    // number of positions reached from the board after depth movements
+    public static long perft(BitBoard board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(board, depth, new MoveStack(depth));
+    }
+
+    private static long perft(BitBoard board, int depth, MoveStack moveStack) {
+        final MoveList moves = moveStack.generateMoves(board, depth - 1);
+
+        // the moves generated are legal, so the last ply only needs to count them
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            nodes += perft(board, depth - 1, moveStack);
+            board.unmakeMove(move);
+        }
+        return nodes;
+    }
+
+    // number of positions under each movement of the board, each movement counted as a task of the pool
+    public static Map<Integer, Long> divide(BitBoard board, int depth, ForkJoinPool pool) {
+        final MoveList moves = MoveGenerator.generateMoves(board);
+        final List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final BitBoard child = board.copy();
+            tasks.add(new RecursiveTask<Long>() {
+                @Override
+                protected Long compute() {
+                    child.makeMove(move);
+                    return perft(child, depth - 1);
+                }
+            });
+        }
+        for (RecursiveTask<Long> task : tasks) {
+            pool.execute(task);
+        }
+
+        Map<Integer, Long> answer = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            answer.put(moves.get(i), tasks.get(i).join());
+        }
+        return answer;
+    }
+
+    // loads a position given as a FEN or as a file saved by the game
+    public static BitBoard load(String position) throws Exception {
+        File file = new File(position);
+        if (!file.isFile()) {
+            return BitBoard.fromFen(position);
+        }
+        BoardState state = new BoardState();
+        try (Scanner scanner = new Scanner(new FileInputStream(file))) {
+            state.loadFromFile(scanner);
+        }
+        return state.toBitBoard();
+    }
+
+    // checks every position of the suite, returns true if all the counts are right
+    public static boolean runSuite(ForkJoinPool pool) throws Exception {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long start = System.nanoTime();
+        for (String[] test : SUITE) {
+            if (test[0].startsWith(PRESET_BOARDS) && !new File(test[0]).isFile()) {
+                System.out.println("SKIPPED " + test[0] + " not found, run from the chess-ai folder");
+                continue;
+            }
+            final int depth = Integer.parseInt(test[1]);
+            final long expected = Long.parseLong(test[2]);
+            long nodes = sum(divide(load(test[0]), depth, pool));
+            totalNodes += nodes;
+            boolean passed = nodes == expected;
+            allPassed &= passed;
+            System.out.println((passed ? "OK     " : "FAILED ") + test[0] + " depth " + depth + ": " + nodes +
+                    (passed ? "" : " expected " + expected));
+        }
+        report(totalNodes, System.nanoTime() - start);
+        return allPassed;
+    }
+
+    private static long sum(Map<Integer, Long> divided) {
+        long nodes = 0;
+        for (long count : divided.values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    private static void report(long nodes, long nanos) {
+        long millis = Math.max(1, nanos / 1_000_000);
+        System.out.println("Nodes " + nodes + " in " + millis + " ms, " + (nodes * 1000 / millis) + " nodes per second");
+    }
+
+    public static void main(String[] args) throws Exception {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (args.length == 0 || args[0].equals("suite")) {
+            System.exit(runSuite(pool) ? 0 : 1);
+        }
+
+        final int depth = Integer.parseInt(args[0]);
+        final String position = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : START_POSITION;
+        final BitBoard board = load(position);
+        System.out.println(board.toFen());
+
+        long start = System.nanoTime();
+        Map<Integer, Long> divided = divide(board, depth, pool);
+        for (Map.Entry<Integer, Long> entry : divided.entrySet()) {
+            System.out.println(Move.toString(entry.getKey()) + ": " + entry.getValue());
+        }
+        report(sum(divided), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,66 @@
+package com.chess.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the random keys used to hash a BitBoard. The hash of a position is the XOR of the key of each
+ * piece on its square, its castling rights, its en passant column and whose turn it is, so it can be updated with a
+ * few XORs every time a movement is made instead of being computed again.
+ * The keys come from a fixed seed so the same position always has the same hash.
+ * **/
+public final class Zobrist {
+
+    private static final long SEED = 0x2C0B215EEDL;
+
+    static final long[][] PIECE_SQUARE = new long[2 * BitBoard.PIECE_TYPES][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_COLUMN = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        // no castling rights left hashes as 0, so each right is a key of its own
+        long[] rightKeys = new long[4];
+        for (int right = 0; right < rightKeys.length; right++) {
+            rightKeys[right] = random.nextLong();
+        }
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            for (int right = 0; right < rightKeys.length; right++) {
+                if ((rights & (1 << right)) != 0) {
+                    CASTLING[rights] ^= rightKeys[right];
+                }
+            }
+        }
+        for (int column = 0; column < EN_PASSANT_COLUMN.length; column++) {
+            EN_PASSANT_COLUMN[column] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    // the hash of the board computed from scratch
+    public static long hash(BitBoard board) {
+        long hash = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = board.getPiece(square);
+            if (piece != BitBoard.NO_PIECE) {
+                hash ^= PIECE_SQUARE[piece][square];
+            }
+        }
+        hash ^= CASTLING[board.getCastlingRights()];
+        if (board.getEnPassant() != BitBoard.NO_SQUARE) {
+            hash ^= EN_PASSANT_COLUMN[Bitboards.columnOf(board.getEnPassant())];
+        }
+        if (board.getTurn() == BitBoard.BLACK) {
+            hash ^= BLACK_TO_MOVE;
+        }
+        return hash;
+    }
+}
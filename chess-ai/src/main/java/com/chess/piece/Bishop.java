@@ -1,9 +1,10 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.Position;
+import com.chess.bitboard.Bitboards;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,7 +25,7 @@ public class Bishop extends Piece{
 
     // checks if the bishop is able to move in the way requested by human player or AI player
     @Override
-    public boolean canMoveTo(Board board, Movement movement) {
+    public boolean canMoveTo(BoardState board, Movement movement) {
         if (!movement.getDestination().isValid()){
             return false;
         }
@@ -51,29 +52,17 @@ public class Bishop extends Piece{
 
     // A list of all movements taken by the bishop to store and display
     @Override
-    public List<Movement> getAllPossibleMovements(Board board, boolean autoCheck) {
-        // Use the Movement constructor to create the movement in algebraic notation
-        int [][] movesDirections = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
-        ArrayList<Movement> allMovements = new ArrayList<>();
-
+    public List<Movement> getAllPossibleMovements(BoardState board, boolean autoCheck) {
         final Position origin = board.getPiecePosition(this);
 
-        // Check if there is no piece on the board
         if (origin == null){
-            return allMovements;
+            // if the piece is not on the board
+            return new ArrayList<>();
         }
 
-        // checks if movement is valid and on the board
-        for (int iLength = 1; iLength < 8; iLength++) {
-            for (int iDir = 0; iDir < 4; iDir++) {
-                final Position potentialPosition = new Position(origin.getX() + movesDirections[iDir][0] * iLength, origin.getY() + movesDirections[iDir][1] * iLength);
-                Movement newMovement = new Movement(board, "" + origin + potentialPosition);
-                if (newMovement.isValid() && board.isValid(newMovement, autoCheck)){
-                    allMovements.add(newMovement);
-                }
-            }
-        }
-        return allMovements;
+        // the squares attacked from the origin are looked up at once, only those are checked
+        long targets = Bitboards.bishopAttacks(Bitboards.square(origin), board.getOccupancy());
+        return getMovementsTo(board, origin, targets, autoCheck);
     }
 
 }
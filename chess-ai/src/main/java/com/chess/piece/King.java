@@ -1,6 +1,6 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.Position;
@@ -38,7 +38,7 @@ public class King extends Piece{
 
     // checks if the king is able to move in the way requested by human player or AI player including castling
     @Override
-    public boolean canMoveTo(Board board, Movement movement) {
+    public boolean canMoveTo(BoardState board, Movement movement) {
 
         final Position delta = movement.getDestination().add(movement.getOrigin().negate());
 
@@ -52,11 +52,11 @@ public class King extends Piece{
             if (delta.getY() < 0){
                 rook = board.getBoard()[movement.getDestination().getX()][0];
             }else{
-                rook = board.getBoard()[movement.getDestination().getX()][Board.BOARD_SIZE - 1];
+                rook = board.getBoard()[movement.getDestination().getX()][BoardState.BOARD_SIZE - 1];
             }
 
             // If the king or rook have been moved at all, then we cannot castle
-            if (isHasMoved() || rook == null || rook.isHasMoved()){
+            if (!board.hasCastlingRight(getColor(), delta.getY() > 0) || rook == null){
                 return false;
             }
 
@@ -87,7 +87,7 @@ public class King extends Piece{
 
     // Creates a list of all valid movements that can be taken by the king from its current position including the avoidance of a check
     @Override
-    public List<Movement> getAllPossibleMovements(Board board, boolean autoCheck) {
+    public List<Movement> getAllPossibleMovements(BoardState board, boolean autoCheck) {
         ArrayList<Movement> allMovements = new ArrayList<>();
 
         final Position origin = board.getPiecePosition(this);
@@ -111,22 +111,18 @@ public class King extends Piece{
     // This method allows for movement of both the Rook and the King for castling
     // by checking if no enemy piece has been in the middle of the king and rook as this is a necessary requirement
     @Override
-    public void move(Board board, Movement movement) {
+    public void move(BoardState board, Movement movement) {
         super.move(board, movement);
         final Position delta = movement.getDestination().add(movement.getOrigin().negate());
         if (Math.abs(delta.getY()) == 2 && delta.getX() == 0){
-            Piece rook = null;
-            if (delta.getY() < 0){
-                rook = board.getBoard()[movement.getDestination().getX()][0];
-            }else{
-                rook = board.getBoard()[movement.getDestination().getX()][Board.BOARD_SIZE - 1];
-            }
+            // the rook is in the corner the king moved towards
+            final Position rookPosition = new Position(movement.getDestination().getX(), delta.getY() < 0 ? 0 : BoardState.BOARD_SIZE - 1);
+            final Piece rook = board.getBoard()[rookPosition.getX()][rookPosition.getY()];
 
             if (rook == null){ // this shouldn't happen
                 return;
             }
 
-            Position rookPosition = board.getPiecePosition(rook);
             final Movement rookMovement = new Movement(board, "" + rookPosition + new Position(movement.getDestination().getX(), movement.getDestination().getY() - delta.getY() / 2));
             rook.move(board, rookMovement);
         }
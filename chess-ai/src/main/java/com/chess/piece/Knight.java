@@ -1,6 +1,6 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.Position;
@@ -33,7 +33,7 @@ public class Knight extends Piece{
 
     // checks if the knight is able to move in the way requested by human player or AI player
     @Override
-    public boolean canMoveTo(Board board, Movement movement) {
+    public boolean canMoveTo(BoardState board, Movement movement) {
 
         //  Check if the movement that knight would like to move to is valid i.e. 2 straight 1 left or right (L-shape)
         final Position delta = movement.getDestination().add(movement.getOrigin().negate());
@@ -54,7 +54,7 @@ public class Knight extends Piece{
 
     //A list of all movements taken by the knight to store and display them
     @Override
-    public List<Movement> getAllPossibleMovements(Board board, boolean autoCheck) {
+    public List<Movement> getAllPossibleMovements(BoardState board, boolean autoCheck) {
         // Use the Movement constructor to create the movement in algebraic notation
         ArrayList<Movement> allMovements = new ArrayList<>();
 
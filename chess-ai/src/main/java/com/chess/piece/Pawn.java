@@ -1,6 +1,6 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.Position;
@@ -27,7 +27,7 @@ public class Pawn extends Piece{
 
     // checks if the pawn is able to move in the way requested by human player or AI player
     @Override
-    public boolean canMoveTo(Board board, Movement movement) {
+    public boolean canMoveTo(BoardState board, Movement movement) {
 
         // moves the pawn forward by 1 step
         Piece destinationPiece = board.getBoard()[movement.getDestination().getX()][movement.getDestination().getY()];
@@ -51,32 +51,18 @@ public class Pawn extends Piece{
             return true;
         }
         // checks for the board and pawn position for whether en passant is possible
-        Movement previousMovement = null;
-        if (!board.getPreviousMovements().isEmpty()){
-            previousMovement = board.getPreviousMovements().get(board.getPreviousMovements().size() - 1);
-        }
-        if (previousMovement != null){
-            if (isEnPassant(movement, previousMovement)){
-                return true;
-            }
-        }
-        return false;
+        return isEnPassant(board, movement);
     }
 
     // performs en passant where player 1 pawn moves 2 steps and ends up beside player 2 pawn, player 2 is able
     // to then capture the player 1 pawn by diagonally performing en passant right behind the player 1 pawn
-    public boolean isEnPassant(Movement movement, Movement previousMovement) {
-        if (previousMovement == null){
-            return false;
-        }
-        Piece previousPiece = previousMovement.getPiece();
-        return previousPiece instanceof Pawn &&
-                previousMovement.getDestination().getX() == movement.getOrigin().getX() && // new pawn is behind the old one
-                Math.abs(previousMovement.getDestination().getY() - movement.getDestination().getY()) == 0 && // it is next to it before movement
-                Math.abs(previousMovement.getDestination().getX() - movement.getDestination().getX()) == 1 && // it is next to it before movement
+    public boolean isEnPassant(BoardState board, Movement movement) {
+        Position enPassant = board.getEnPassant();
+        return enPassant != null &&
+                enPassant.equals(movement.getDestination()) && // moving right behind the pawn that moved 2 spaces
+                enPassant.getX() == (getColor() == Color.WHITE ? 5 : 2) && // that pawn has a different color
                 movement.getDestination().getX() - movement.getOrigin().getX() == deltaX && // it is moving in the correct direction
-                Math.abs(previousMovement.getDestination().getX() - previousMovement.getOrigin().getX()) == 2 &&  // previous movement was 2 space
-                !previousPiece.getColor().equals(getColor()) // pawn has a different color
+                Math.abs(movement.getDestination().getY() - movement.getOrigin().getY()) == 1 // it is next to it before movement
                 ;
 
     }
@@ -92,7 +78,7 @@ public class Pawn extends Piece{
      /** A list of all movements taken by the pawn to store and display them, including promotion, and en passant
      * **/
     @Override
-    public List<Movement> getAllPossibleMovements(Board board, boolean autoCheck) {
+    public List<Movement> getAllPossibleMovements(BoardState board, boolean autoCheck) {
         int [][] movesDirections = {{deltaX, 0}, {deltaX * 2, 0}, {deltaX, 1}, {deltaX, -1}};
         ArrayList<Movement> allMovements = new ArrayList<>();
 
@@ -109,7 +95,7 @@ public class Pawn extends Piece{
             final Position potentialPosition = new Position(origin.getX() + movesDirections[iDir][0], origin.getY() + movesDirections[iDir][1]);
             Movement newMovement = new Movement(board, "" + origin + potentialPosition);
             if (newMovement.isValid() && board.isValid(newMovement, autoCheck)){
-                if ((board.getTurn() == Color.WHITE.ordinal() && newMovement.getDestination().getX() == Board.BOARD_SIZE - 1) ||
+                if ((board.getTurn() == Color.WHITE.ordinal() && newMovement.getDestination().getX() == BoardState.BOARD_SIZE - 1) ||
                         (board.getTurn() == Color.BLACK.ordinal() && newMovement.getDestination().getX() == 0)){
                     String movementString = newMovement.toStringSimple();
                     // Written below are all possible promotions that a pawn can get
@@ -127,22 +113,18 @@ public class Pawn extends Piece{
 
     // moves a piece based on which type of movement it is: en passant, initial 2 step, promotion, capture or initial 1 step
     @Override
-    public void move(Board board, Movement movement) {
-        Movement previousMovement = null;
-        if (!board.getPreviousMovements().isEmpty()){
-            previousMovement = board.getPreviousMovements().get(board.getPreviousMovements().size() - 1);
-        }
-        boolean isEnPassant = isEnPassant(movement, previousMovement);
+    public void move(BoardState board, Movement movement) {
+        boolean isEnPassant = isEnPassant(board, movement);
 
         super.move(board, movement);
 
         // moves based on enPassant
         if (isEnPassant){
-            board.getBoard()[previousMovement.getDestination().getX()][previousMovement.getDestination().getY()] = null;
+            board.setPiece(new Position(movement.getOrigin().getX(), movement.getDestination().getY()), null);
         }
         // moves based on promotion
         if (movement.isPromoted()){
-            board.getBoard()[movement.getDestination().getX()][movement.getDestination().getY()] = movement.getPromotedTo();
+            board.setPiece(movement.getDestination(), movement.getPromotedTo());
         }
     }
 }
@@ -1,9 +1,12 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
+import com.chess.Position;
+import com.chess.bitboard.Bitboards;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,9 +31,6 @@ public abstract class Piece {
     // for the position of a piece in algebraic notation when promoted for ex.
     private String algebraicNotationName;
 
-    // whether the piece has moved or not
-    private boolean hasMoved;
-
     // take in all the parameters of a piece
     public Piece(Color color, int value, String imagePathWhite, String imagePathBlack, String algebraicNotationName) {
         this.color = color;
@@ -40,27 +40,27 @@ public abstract class Piece {
         this.algebraicNotationName = algebraicNotationName;
     }
 
-    // returns if a piece has moved or not
-    public boolean isHasMoved() {
-        return hasMoved;
-    }
-
-    // ignore
-    public void setHasMoved(boolean hasMoved) {
-        this.hasMoved = hasMoved;
-    }
-
     // checks if movement of a piece is possible on the board
-    public abstract boolean canMoveTo(final Board board, final Movement movement);
+    public abstract boolean canMoveTo(final BoardState board, final Movement movement);
 
     // gets all possible movements on a board
-    public abstract List<Movement> getAllPossibleMovements(final Board board, boolean autoCheck);
+    public abstract List<Movement> getAllPossibleMovements(final BoardState board, boolean autoCheck);
+
+    // creates the valid movements from the origin to each of the target squares of a bitboard
+    protected List<Movement> getMovementsTo(BoardState board, Position origin, long targets, boolean autoCheck) {
+        ArrayList<Movement> allMovements = new ArrayList<>();
+        for (; targets != 0; targets &= targets - 1) {
+            Movement newMovement = new Movement(board, "" + origin + Bitboards.toPosition(Long.numberOfTrailingZeros(targets)));
+            if (newMovement.isValid() && board.isValid(newMovement, autoCheck)){
+                allMovements.add(newMovement);
+            }
+        }
+        return allMovements;
+    }
 
     // moves a piece and saves it
-    public void move(final Board board, final Movement movement){
-        board.getBoard()[movement.getDestination().getX()][movement.getDestination().getY()] = board.getBoard()[movement.getOrigin().getX()][movement.getOrigin().getY()];
-        board.getBoard()[movement.getOrigin().getX()][movement.getOrigin().getY()] = null;
-        hasMoved = true;
+    public void move(final BoardState board, final Movement movement){
+        board.movePiece(movement.getOrigin(), movement.getDestination());
     }
 
     // gets the algebraic notation name
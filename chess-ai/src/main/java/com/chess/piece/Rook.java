@@ -1,9 +1,10 @@
 package com.chess.piece;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.Position;
+import com.chess.bitboard.Bitboards;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +26,7 @@ public class Rook extends Piece{
     }
     // checks if the rook is able to move in the way requested by human player or AI player
     @Override
-    public boolean canMoveTo(Board board, Movement movement) {
+    public boolean canMoveTo(BoardState board, Movement movement) {
         // check that the movement requested is legal/correct
         final Position delta = movement.getDestination().add(movement.getOrigin().negate());
         if (movement.getDestination().equals(movement.getOrigin()) ||
@@ -47,28 +48,17 @@ public class Rook extends Piece{
 
     //A list of all movements taken by the rook to store and display
     @Override
-    public List<Movement> getAllPossibleMovements(Board board, boolean autoCheck) {
-        int [][] movesDirections = {{0, -1}, {0, 1}, {1, 0}, {-1, 0}};
-        ArrayList<Movement> allMovements = new ArrayList<>();
-
+    public List<Movement> getAllPossibleMovements(BoardState board, boolean autoCheck) {
         final Position origin = board.getPiecePosition(this);
 
         if (origin == null){
             // if the piece is not on the board
-            return allMovements;
+            return new ArrayList<>();
         }
 
-        // checks if movement is valid and on the board
-        for (int iLength = 1; iLength < 8; iLength++) {
-            for (int iDir = 0; iDir < movesDirections.length; iDir++) {
-                final Position potentialPosition = new Position(origin.getX() + movesDirections[iDir][0] * iLength, origin.getY() + movesDirections[iDir][1] * iLength);
-                Movement newMovement = new Movement(board, "" + origin + potentialPosition);
-                if (newMovement.isValid() && board.isValid(newMovement, autoCheck)){
-                    allMovements.add(newMovement);
-                }
-            }
-        }
-        return allMovements;
+        // the squares attacked from the origin are looked up at once, only those are checked
+        long targets = Bitboards.rookAttacks(Bitboards.square(origin), board.getOccupancy());
+        return getMovementsTo(board, origin, targets, autoCheck);
     }
 
 }
@@ -1,6 +1,6 @@
 package com.chess.player;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 
@@ -19,7 +19,7 @@ public class Human extends PlayMode {
     }
 
     @Override
-    public Movement getNextMove(Board board, int turn) {
+    public Movement getNextMove(BoardState board, int turn) {
         // read the movement requested from inputstream and return it
         return new Movement(board, scanner.next());
     }
@@ -1,30 +1,63 @@
 package com.chess.player;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 import com.chess.ai.BasicEvaluationMethod;
-import com.chess.piece.Piece;
+import com.chess.ai.MoveOrderer;
+import com.chess.ai.OpeningBook;
+import com.chess.ai.Tablebase;
+import com.chess.ai.Tablebases;
+import com.chess.ai.TranspositionTable;
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Move;
+import com.chess.bitboard.MoveGenerator;
+import com.chess.bitboard.MoveList;
+import com.chess.bitboard.MoveStack;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class represents a MiniMaxAI
  * It includes attributes and methods for Movement, depth, colors etc.
+ * The search can run on several threads, see setThreads, in two ways, see setParallelSearch. With a shared hash every
+ * thread searches the same position on its own copy of the board, sharing the transposition table, so what one thread
+ * finds saves work to the others. Helper threads search in a slightly different order and depth than the main thread
+ * so they do not all do the same work, and the movement played is always the one found by the main thread.
+ * With young brothers wait the tree itself is split: at the root and in the principal variation the first movement is
+ * searched alone, and once it has set the window the rest are searched at the same time as tasks of a fork join pool.
+ * With pondering, see setPondering, the AI keeps searching while the opponent thinks, on the position after the reply
+ * it expects. If the opponent plays it, that search carries on as the search of the next movement.
+ * What every search did, its nodes, transposition table probes, cutoffs and iterations, is told to the listeners after
+ * every iteration and at the end, see SearchListener and SearchStatistics.
  * **/
 public class MiniMaxAI extends PlayMode {
 
     public static class MiniMaxResult {
         // initializing the variables value, movement
-        private double value;
+        private final double value;
 
-        private Movement movement;
+        private final int movement;
 
         // result method
-        public MiniMaxResult(double value, Movement movement) {
+        public MiniMaxResult(double value, int movement) {
             this.value = value;
             this.movement = movement;
         }
@@ -34,20 +67,18 @@ public class MiniMaxAI extends PlayMode {
             return value;
         }
 
-        // setter method for setting value
-        public void setValue(double value) {
-            this.value = value;
-        }
-
         // getter method for getting movement
-        public Movement getMovement() {
+        public int getMovement() {
             return movement;
         }
+    }
 
-        // setter method for setting movement
-        public void setMovement(Movement movement) {
-            this.movement = movement;
-        }
+    // how the threads share the search
+    public enum ParallelSearch {
+        // every thread searches the whole tree, sharing the transposition table
+        SHARED_HASH,
+        // the movements of the root and the principal variation are split between the threads
+        YOUNG_BROTHERS_WAIT
     }
     // initializing the variables: depth, myColor
     private int depth;
@@ -58,122 +89,1269 @@ public class MiniMaxAI extends PlayMode {
 
     // the constructor accepts name, depth and myColor and calls parent constructor with argument name i.e. from PlayMode.java
     public MiniMaxAI(String name, int depth, Color myColor) {
+        this(name, depth, myColor, TranspositionTable.DEFAULT_MEGABYTES);
+    }
+
+    // same as above with the size in megabytes of the transposition table
+    public MiniMaxAI(String name, int depth, Color myColor, int hashMegabytes) {
         super(name, ID);
         this.depth = depth;
         this.myColor = myColor;
+        this.transpositionTable = new TranspositionTable(hashMegabytes);
+        setThreads(1);
     }
-    // Gets the next move by cloning board, calling another miniMax method
+    // Gets the next move by converting the board to bitboards and searching it, unless the opening book has a movement
+    // for it or the search done while pondering was already on this board
     @Override
-    public Movement getNextMove(Board board, int turn) {
-        evaluated = 0;
-        int inf = 1 << 30;
-        Board boardCloned = board.clone();
-        final MiniMaxResult miniMaxResult = miniMax(boardCloned, depth, -1 * inf, inf);
-        System.out.println("Value " + miniMaxResult.getValue() + " " + miniMaxResult.getMovement());
-        return miniMaxResult.getMovement();
+    public Movement getNextMove(BoardState board, int turn) {
+        final BitBoard bitBoard = BitBoard.fromBoardState(board);
+        if (openingBook != null) {
+            final int bookMovement = openingBook.pickMove(bitBoard, searchers[0].random);
+            if (bookMovement != Move.NONE) {
+                stopPondering();
+                return Move.toMovement(board, bookMovement);
+            }
+        }
+        MiniMaxResult miniMaxResult = finishPondering(bitBoard);
+        if (miniMaxResult == null) {
+            miniMaxResult = search(bitBoard);
+        }
+        System.out.println("Value " + miniMaxResult.getValue() + " " + Move.toString(miniMaxResult.getMovement()));
+        final Movement movement = Move.toMovement(board, miniMaxResult.getMovement());
+        if (pondering) {
+            startPondering(bitBoard, miniMaxResult.getMovement());
+        }
+        return movement;
+    }
+
+    // searches in the background, while the opponent thinks, the position after the reply found in the transposition
+    // table for the movement played. With no reply there, the position of the opponent is searched instead, which
+    // fills the table for every reply
+    private void startPondering(BitBoard bitBoard, int movement) {
+        final BitBoard ponderBoard = bitBoard.copy();
+        ponderBoard.makeMove(movement);
+        final int reply = TranspositionTable.move(transpositionTable.probe(ponderBoard.getHash()));
+        // the table may hold the movement of another position with the same index, so it has to be legal here
+        if (reply != Move.NONE && MoveGenerator.generateMoves(ponderBoard).contains(reply)) {
+            ponderBoard.makeMove(reply);
+        }
+        ponderHash = ponderBoard.getHash();
+
+        if (ponderPool == null) {
+            ponderPool = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, getName() + " ponder");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        onOpponentTime = true;
+        ponderSearch = ponderPool.submit(new Callable<MiniMaxResult>() {
+            @Override
+            public MiniMaxResult call() {
+                return search(ponderBoard);
+            }
+        });
+    }
+
+    // if the opponent played the expected reply the search done while pondering carries on, now with the budget of a
+    // normal search, and its result is returned. Otherwise it is stopped, its results stay in the transposition table,
+    // and null is returned
+    private MiniMaxResult finishPondering(BitBoard bitBoard) {
+        if (ponderSearch == null) {
+            return null;
+        }
+        if (bitBoard.getHash() != ponderHash) {
+            stopPondering();
+            return null;
+        }
+        deadline = System.nanoTime() + timeBudget * 1_000_000;
+        onOpponentTime = false;
+        try {
+            return ponderSearch.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Ponder search failed", e);
+        } finally {
+            ponderSearch = null;
+        }
+    }
+
+    // stops the search done while pondering, asking again until it ends in case it had not started yet
+    private void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+        while (true) {
+            stopped = true;
+            try {
+                ponderSearch.get(STOP_WAIT, TimeUnit.MILLISECONDS);
+                break;
+            } catch (TimeoutException e) {
+                // not stopped yet
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Ponder search failed", e);
+            }
+        }
+        ponderSearch = null;
+        onOpponentTime = false;
+    }
+
+    // calls miniMax one ply deeper each time, until the depth is reached or, if there is a budget, until the budget
+    // runs out. Helper threads search the same board until the main thread is done. What the previous search learned
+    // is kept: the transposition table and the history are aged rather than cleared, and if the game followed the
+    // principal variation the killers and the next movement of the variation carry over to this board
+    public MiniMaxResult search(BitBoard bitBoard) {
+        transpositionTable.newSearch();
+        searchStart = System.nanoTime();
+        deadline = searchStart + timeBudget * 1_000_000;
+        stopped = false;
+        iterations = 0;
+        searching = true;
+        final int playedPlies = findInPrincipalVariation(bitBoard.getHash());
+        // the searchers of the splits get their board with each task
+        for (Searcher splitSearcher : splitSearchers) {
+            splitSearcher.start(null, playedPlies);
+        }
+
+        final List<Future<?>> helperSearches = new ArrayList<>();
+        for (int i = 1; helperPool != null && i < searchers.length; i++) {
+            final Searcher helper = searchers[i];
+            helper.start(bitBoard.copy(), playedPlies);
+            helperSearches.add(helperPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    helper.iterate(helper.getFirstDepth(), MoveStack.MAX_PLY - 1);
+                }
+            }));
+        }
+
+        final Searcher main = searchers[0];
+        main.start(bitBoard, playedPlies);
+        if (playedPlies > 0 && playedPlies < principalVariation.length) {
+            main.firstMovement = principalVariation[playedPlies];
+        }
+        final int maxDepth = hasBudget() ? MoveStack.MAX_PLY - 1 : depth;
+        MiniMaxResult miniMaxResult;
+        if (splitPool == null) {
+            miniMaxResult = main.iterate(1, maxDepth);
+        } else {
+            // the main thread searches from the pool too, so the movements it splits are run by the workers
+            miniMaxResult = splitPool.invoke(new RecursiveTask<MiniMaxResult>() {
+                @Override
+                protected MiniMaxResult compute() {
+                    return main.iterate(1, maxDepth);
+                }
+            });
+        }
+
+        stopped = true;
+        for (Future<?> helperSearch : helperSearches) {
+            try {
+                helperSearch.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e);
+            }
+        }
+        if (miniMaxResult == null) {
+            miniMaxResult = fallbackResult(bitBoard);
+        }
+        keepPrincipalVariation(bitBoard, miniMaxResult.getMovement(), main.completedDepth);
+        lastStatistics = takeStatistics();
+        searching = false;
+        for (SearchListener listener : listeners) {
+            listener.searchCompleted(lastStatistics);
+        }
+        return miniMaxResult;
+    }
+
+    // the result of a search that did not complete any iteration: the movement in the transposition table if it is
+    // legal on the board, otherwise the first legal one
+    private MiniMaxResult fallbackResult(BitBoard bitBoard) {
+        final MoveList movements = MoveGenerator.generateMoves(bitBoard);
+        final long entry = transpositionTable.probe(bitBoard.getHash());
+        final int hashMovement = TranspositionTable.move(entry);
+        if (hashMovement != Move.NONE && movements.contains(hashMovement)) {
+            return new MiniMaxResult(scoreFromTable(TranspositionTable.score(entry), 0), hashMovement);
+        }
+        return new MiniMaxResult(0, movements.isEmpty() ? Move.NONE : movements.get(0));
+    }
+
+    // keeps the nodes and time of the iteration the main thread just completed and tells the listeners
+    private void iterationCompleted(int iterationDepth) {
+        final long now = System.nanoTime();
+        final long nodes = getNodes();
+        long previousNodes = 0;
+        long previousNanos = searchStart;
+        for (int i = 0; i < iterations; i++) {
+            previousNodes += iterationNodes[i];
+            previousNanos += iterationNanos[i];
+        }
+        iterationDepths[iterations] = iterationDepth;
+        iterationNodes[iterations] = nodes - previousNodes;
+        iterationNanos[iterations] = now - previousNanos;
+        iterations++;
+        if (!listeners.isEmpty()) {
+            final SearchStatistics statistics = takeStatistics();
+            for (SearchListener listener : listeners) {
+                listener.iterationCompleted(statistics);
+            }
+        }
+    }
+
+    // what the search being done did so far, or the last one once it is over. Added up over every thread, so a little
+    // behind while the search is running, see Searcher.publishCounters
+    public SearchStatistics getStatistics() {
+        return searching || lastStatistics == null ? takeStatistics() : lastStatistics;
+    }
+
+    private SearchStatistics takeStatistics() {
+        final List<Searcher> all = new ArrayList<>(Arrays.asList(searchers));
+        all.addAll(splitSearchers);
+        long nodes = 0;
+        long quiescenceNodes = 0;
+        long tableProbes = 0;
+        long tableHits = 0;
+        long tableStores = 0;
+        long betaCutoffs = 0;
+        long firstMoveCutoffs = 0;
+        for (Searcher searcher : all) {
+            nodes += searcher.publishedNodes;
+            quiescenceNodes += searcher.publishedQuiescenceNodes;
+            tableProbes += searcher.publishedTableProbes;
+            tableHits += searcher.publishedTableHits;
+            tableStores += searcher.publishedTableStores;
+            betaCutoffs += searcher.publishedBetaCutoffs;
+            firstMoveCutoffs += searcher.publishedFirstMoveCutoffs;
+        }
+        final int completed = iterations;
+        return new SearchStatistics(nodes, quiescenceNodes, tableProbes, tableHits, tableStores, betaCutoffs,
+                firstMoveCutoffs, searchStart == 0 ? 0 : System.nanoTime() - searchStart, Arrays.copyOf(iterationDepths, completed),
+                Arrays.copyOf(iterationNodes, completed), Arrays.copyOf(iterationNanos, completed));
+    }
+
+    // the listener is told how every search goes from the next iteration on
+    public void addSearchListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeSearchListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    // follows the best movements from the root through the transposition table, as deep as the search went, keeping
+    // the key of every position on the way
+    private void keepPrincipalVariation(BitBoard bitBoard, int movement, int depth) {
+        final BitBoard board = bitBoard.copy();
+        final int[] movements = new int[depth];
+        final long[] keys = new long[depth + 1];
+        keys[0] = board.getHash();
+        int length = 0;
+        while (length < depth && movement != Move.NONE && MoveGenerator.generateMoves(board).contains(movement)) {
+            board.makeMove(movement);
+            movements[length++] = movement;
+            keys[length] = board.getHash();
+            if (board.isRepetition()) {
+                break;
+            }
+            movement = TranspositionTable.move(transpositionTable.probe(board.getHash()));
+        }
+        principalVariation = Arrays.copyOf(movements, length);
+        principalVariationKeys = Arrays.copyOf(keys, length + 1);
+    }
+
+    // how many plies of the principal variation of the previous search lead to the position, 0 if it is not on it
+    private int findInPrincipalVariation(long key) {
+        for (int plies = 1; plies < principalVariationKeys.length; plies++) {
+            if (principalVariationKeys[plies] == key) {
+                return plies;
+            }
+        }
+        return 0;
+    }
+
+    // the best movements of both players found by the last search, the movement played first
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    // stops the search being done, which returns the best movement found so far. Every thread checks every few nodes,
+    // so the search unwinds at once, though the first iteration is always completed so there is a movement to play.
+    // A search that starts after this call is not stopped
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    // stops the threads of the search and pondering, setThreads starts them again
+    @Override
+    public void close() {
+        stopPondering();
+        if (ponderPool != null) {
+            ponderPool.shutdown();
+            ponderPool = null;
+        }
+        stopped = true;
+        if (helperPool != null) {
+            helperPool.shutdown();
+            helperPool = null;
+        }
+        if (splitPool != null) {
+            splitPool.shutdown();
+            splitPool = null;
+        }
+    }
+
+    // returns the result of mini max through alpha-beta pruning, the value seen by the player whose turn it is
+    public MiniMaxResult miniMax(BitBoard board, int depth, int alpha, int beta){
+        return searchers[0].miniMax(board, depth, alpha, beta);
+    }
+
+    // the search stops after this many milliseconds, 0 to search to the depth no matter how long it takes
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    // the search stops after this many nodes, counting every thread, 0 to search to the depth no matter how many
+    // nodes it takes
+    public void setNodeBudget(long nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
+
+    public long getNodeBudget() {
+        return nodeBudget;
+    }
+
+    // number of threads searching, the main one included
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid number of threads " + threads);
+        }
+        this.threads = threads;
+        close();
+        idleSearchers.clear();
+        splitSearchers.clear();
+
+        // splitting the tree needs a single searcher to start with, the rest are made as the tasks need them
+        final int searcherCount = parallelSearch == ParallelSearch.SHARED_HASH ? threads : 1;
+        final Searcher[] previousSearchers = searchers;
+        searchers = new Searcher[searcherCount];
+        for (int i = 0; i < searcherCount; i++) {
+            searchers[i] = new Searcher(i);
+        }
+        // keeps the seed of the main thread if there was one
+        if (previousSearchers != null) {
+            searchers[0].random = previousSearchers[0].random;
+        }
+        if (threads > 1 && parallelSearch == ParallelSearch.YOUNG_BROTHERS_WAIT) {
+            // the workers of a fork join pool are daemon threads already
+            splitPool = new ForkJoinPool(threads);
+        } else if (threads > 1) {
+            helperPool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, getName() + " helper");
+                    // the helpers never keep the game from closing
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // how the threads share the search, takes effect on the threads set from then on
+    public void setParallelSearch(ParallelSearch parallelSearch) {
+        this.parallelSearch = parallelSearch;
+        setThreads(threads);
+    }
+
+    public ParallelSearch getParallelSearch() {
+        return parallelSearch;
+    }
+
+    // nodes searched by every thread in the last search. While it runs each thread only shows its nodes every few
+    // nodes, so this is a little behind
+    public long getNodes() {
+        long nodes = 0;
+        for (Searcher searcher : searchers) {
+            nodes += searcher.publishedNodes;
+        }
+        for (Searcher splitSearcher : splitSearchers) {
+            nodes += splitSearcher.publishedNodes;
+        }
+        return nodes;
+    }
+
+    // whether the search tries passing the turn to cut nodes where the player is far ahead
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    // whether the search reduces the depth of quiet movements ordered late
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    // whether the nodes close to the bottom are cut when their evaluation is far from the window, with futility
+    // pruning, reverse futility pruning and razoring
+    public void setFrontierPruning(boolean frontierPruning) {
+        this.frontierPruning = frontierPruning;
+    }
+
+    public boolean isFrontierPruning() {
+        return frontierPruning;
+    }
+
+    // whether the AI keeps searching while the opponent thinks, only worth it when the opponent does not search too
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    // the book the movements of the opening are played from without searching, null to always search
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    // the tablebases whose endings are looked up instead of searched, null to always search
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    public Tablebases getTablebases() {
+        return tablebases;
+    }
+
+    // makes the random order of the root movements and the movements picked from the book the same every game
+    public void setRandomSeed(long seed) {
+        searchers[0].random = new Random(seed);
+    }
+
+    // searches the root movements in a random order for variety between games, or always in the same order
+    public void setRandomizeRoot(boolean randomizeRoot) {
+        this.randomizeRoot = randomizeRoot;
+    }
+
+    public boolean isRandomizeRoot() {
+        return randomizeRoot;
+    }
+
+    private boolean hasBudget() {
+        return timeBudget > 0 || nodeBudget > 0;
+    }
+
+    // the budget only counts once the opponent has moved
+    private boolean budgetExceeded() {
+        if (onOpponentTime) {
+            return false;
+        }
+        return (nodeBudget > 0 && getNodes() >= nodeBudget) || (timeBudget > 0 && System.nanoTime() >= deadline);
+    }
+
+    // a searcher for a task of a split, reusing the ones of the tasks already done. A worker waiting for its tasks to
+    // finish may run other tasks meanwhile, so searchers belong to tasks rather than to threads
+    private Searcher acquireSearcher() {
+        final Searcher searcher = idleSearchers.poll();
+        if (searcher != null) {
+            return searcher;
+        }
+        final Searcher created = new Searcher(-1);
+        splitSearchers.add(created);
+        return created;
     }
 
     public int getDepth() {
         return depth;
     }
 
-    private static int evaluated = 0;
+    // whether movements equally good for the move orderer are searched in a random order at the root
+    private boolean randomizeRoot = true;
 
-    // result stored in HashMap
-    HashMap<String, MiniMaxResult> cached = new HashMap<>();
+    private boolean nullMovePruning = true;
 
-    // returns the result of mini max through alpha-beta pruning
-    public MiniMaxResult miniMax(Board board, int depth, double alpha, double beta){
-        String boardKey = board.toStringBoard() + depth + board.getTurn();
-        if (cached.containsKey(boardKey)){
-            return cached.get(boardKey);
-        }
+    private boolean lateMoveReductions = true;
+
+    private boolean frontierPruning = true;
+
+    private boolean pondering = false;
+
+    private OpeningBook openingBook;
+
+    private Tablebases tablebases;
+
+    // runs the search done while pondering, null until the first one
+    private ExecutorService ponderPool;
+
+    // the search done while pondering, null if there is none
+    private Future<MiniMaxResult> ponderSearch;
+
+    // key of the position searched while pondering
+    private long ponderHash;
+
+    // set while pondering until the opponent moves
+    private volatile boolean onOpponentTime;
+
+    private final BasicEvaluationMethod basicEvaluationMethod = new BasicEvaluationMethod();
+
+    // results of the positions already searched, shared by every thread, kept between moves and replaced as they get old
+    private final TranspositionTable transpositionTable;
+
+    private ParallelSearch parallelSearch = ParallelSearch.SHARED_HASH;
+
+    private int threads;
+
+    // the main thread first, then the helpers
+    private Searcher[] searchers;
+
+    // runs the helpers, null if there are none
+    private ExecutorService helperPool;
+
+    // runs the tasks the tree is split into, null unless the tree is split
+    private ForkJoinPool splitPool;
+
+    // searchers of the tasks of a split that are not running, and every one made so far to count their nodes
+    private final Queue<Searcher> idleSearchers = new ConcurrentLinkedQueue<>();
+    private final List<Searcher> splitSearchers = new CopyOnWriteArrayList<>();
+
+    private long timeBudget = 0;
+
+    private long nodeBudget = 0;
+
+    // System.nanoTime at which the time budget runs out
+    private long deadline;
+
+    // set once the search has to stop, every thread unwinds its search from then on
+    private volatile boolean stopped;
+
+    // System.nanoTime at which the search started
+    private long searchStart;
+
+    // depth, nodes and time of every iteration the main thread completed in the search, only written by it
+    private final int[] iterationDepths = new int[MoveStack.MAX_PLY];
+    private final long[] iterationNodes = new long[MoveStack.MAX_PLY];
+    private final long[] iterationNanos = new long[MoveStack.MAX_PLY];
+    private volatile int iterations;
+
+    private volatile boolean searching;
+
+    // taken at the end of the last search, null until a search ends
+    private volatile SearchStatistics lastStatistics;
+
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+
+    // the best movements found by the last search and the keys of the positions they start from, plus the last one
+    private int[] principalVariation = new int[0];
+    private long[] principalVariationKeys = new long[0];
 
-        final BasicEvaluationMethod basicEvaluationMethod = new BasicEvaluationMethod();
+    // how long to wait for the search done while pondering to stop before asking it again
+    private static final long STOP_WAIT = 10;
 
-        // the bottom of the tree is reached
-        if (depth == 0 || board.isGameOver().isGameOver()){
-            ++evaluated;
-            if (evaluated % 1000 == 0)
-                System.out.println(evaluated);
-            return new MiniMaxResult(basicEvaluationMethod.evaluateBoard(board, board.getTurn()), null);
+    // the clock is only read every this many nodes
+    private static final int NODES_BETWEEN_CHECKS = 1024;
+
+    // larger than any value, kings included the evaluation stays below 10^9
+    private static final int INFINITY = 1 << 30;
+
+    // value of being checkmated at the root, being checkmated n plies away is worth -MATE + n
+    private static final int MATE = INFINITY - 1;
+
+    // values beyond this are checkmates, the ones found in the tablebases as far as they go past the deepest ply
+    private static final int MATE_BOUND = MATE - MoveStack.MAX_PLY - Tablebase.MAX_PLIES;
+
+    private static final int DRAW = 0;
+
+    // aspiration windows start a quarter of a pawn wide around the previous value, from this depth on, and once they
+    // get wider than a few queens the window is opened all the way
+    private static final int ASPIRATION_WINDOW = 250;
+    private static final int ASPIRATION_MAX_WINDOW = 32000;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    // null move pruning searches this many plies shallower, one more in deep searches
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    // late move reductions start with the movement at this index, in nodes at least this deep
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+
+    // frontier pruning looks at the nodes this close to the bottom. The margins are how much the value could still
+    // change in the plies left, indexed by the depth, a pawn is 1000
+    private static final int FRONTIER_MAX_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MARGIN = 1200;
+    private static final int[] RAZORING_MARGINS = {0, 2000, 3500};
+    private static final int[] FUTILITY_MARGINS = {0, 1500, 3200, 5000};
+
+    // what the position of the pieces can change on top of the material captured, two pawns
+    private static final int DELTA_MARGIN = 2000;
+
+    // nodes shallower than this are not worth splitting, the tasks would cost more than they save
+    private static final int SPLIT_MIN_DEPTH = 4;
+
+    /**
+     * A node whose movements are searched by several tasks at the same time, sharing its window and best value
+     * **/
+    private static class SplitPoint {
+
+        // the split this one is under, if any, cancelling it cancels this one too
+        private final SplitPoint parent;
+
+        private final int beta;
+
+        private int alpha;
+
+        private int bestValue;
+
+        private int bestMovement;
+
+        // a movement reached beta, the rest do not have to be searched
+        private volatile boolean cancelled;
+
+        // a task stopped before finishing for another reason, so the best value is not the value of the node
+        private volatile boolean incomplete;
+
+        SplitPoint(SplitPoint parent, int alpha, int beta, int bestValue, int bestMovement) {
+            this.parent = parent;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.bestValue = bestValue;
+            this.bestMovement = bestMovement;
         }
 
-        final Piece[][] realBoard = board.getBoard();
-        final ArrayList<Movement> movementsToExplore = board.getAllMyMovements(false);
+        synchronized int getAlpha() {
+            return alpha;
+        }
+
+        synchronized int getBestValue() {
+            return bestValue;
+        }
 
-        // increasing variety of possible moves
-        Collections.shuffle(movementsToExplore);
-        MiniMaxResult bestMovement;
+        synchronized int getBestMovement() {
+            return bestMovement;
+        }
 
-        if ((Board.turnColors[board.getTurn()].equals(myColor) && Color.WHITE.equals(myColor)) ||
-                (!Board.turnColors[board.getTurn()].equals(myColor) && Color.BLACK.equals(myColor))){
-            // defaults to negative inf
-            bestMovement = new MiniMaxResult((1 << 30) * -1, null);
-            for (Movement move :
-                    movementsToExplore) {
+        // takes the value of a movement, raising alpha for the tasks that start later and cancelling the rest on a cutoff
+        synchronized void update(int value, int movement) {
+            if (value > bestValue) {
+                bestValue = value;
+                bestMovement = movement;
+                alpha = Math.max(alpha, value);
+                if (alpha >= beta) {
+                    cancelled = true;
+                }
+            }
+        }
 
-                Piece originalDestination = realBoard[move.getDestination().getX()][move.getDestination().getY()];
-                Piece originalOrigin = realBoard[move.getOrigin().getX()][move.getOrigin().getY()];
-                // perform the movement
-                realBoard[move.getDestination().getX()][move.getDestination().getY()] = realBoard[move.getOrigin().getX()][move.getOrigin().getY()];
-                realBoard[move.getOrigin().getX()][move.getOrigin().getY()] = null;
-                board.setTurn((board.getTurn() + 1) % 2);
-                if (move.isPromoted()){
-                    realBoard[move.getDestination().getX()][move.getDestination().getY()] = move.getPromotedTo();
+        boolean isCancelled() {
+            for (SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent) {
+                if (splitPoint.cancelled) {
+                    return true;
                 }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Searches one of the younger brothers of a split, on its own copy of the board, returning its value
+     * **/
+    private class SiblingSearch extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SplitPoint splitPoint;
+
+        private final BitBoard board;
+
+        private final int move;
+
+        // index of the movement in the order of the node
+        private final int index;
+
+        private final int depth;
+
+        private final int ply;
+
+        SiblingSearch(SplitPoint splitPoint, BitBoard board, int move, int index, int depth, int ply) {
+            this.splitPoint = splitPoint;
+            this.board = board;
+            this.move = move;
+            this.index = index;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Integer compute() {
+            final Searcher searcher = acquireSearcher();
+            try {
+                return searcher.searchSibling(splitPoint, board, move, index, depth, ply);
+            } finally {
+                idleSearchers.add(searcher);
+            }
+        }
+    }
 
-                MiniMaxResult currentResult = miniMax(board, depth - 1, alpha, beta);
+    /**
+     * The search done by one thread, with its own board, movement lists and move ordering
+     * **/
+    private class Searcher {
 
-                // reverse the move
-                realBoard[move.getDestination().getX()][move.getDestination().getY()] = originalDestination;
-                realBoard[move.getOrigin().getX()][move.getOrigin().getY()] = originalOrigin;
-                board.setTurn((board.getTurn() + 1) % 2);
+        // 0 for the main thread, -1 for the ones running the tasks of a split
+        private final int id;
 
-                if (bestMovement == null || currentResult.getValue() > bestMovement.getValue()){
-                    bestMovement = currentResult;
-                    bestMovement.setMovement(move);
+        private BitBoard board;
+
+        // the movements of each ply are generated into the same lists over and over
+        private final MoveStack moveStack = new MoveStack();
+
+        private final MoveOrderer moveOrderer = new MoveOrderer();
+
+        // where the tablebases write the squares of the pieces of the positions probed
+        private final int[] tablebaseSquares = new int[Tablebase.MAX_PIECES];
+
+        private Random random;
+
+        // best movement found at the root by the last iteration, searched first by the next one
+        private int rootMovement = Move.NONE;
+
+        // whether rootMovement holds a movement, as the split tasks and the helpers read it while the main thread
+        // writes rootMovement without any synchronization
+        private volatile boolean rootMovementFound;
+
+        // searched first at the root by the first iteration, the movement the previous search expected here if any
+        private int firstMovement = Move.NONE;
+
+        // depth of the last iteration completed
+        private int completedDepth;
+
+        private long nodes;
+
+        // what the statistics of the search add up, see SearchStatistics
+        private long quiescenceNodes;
+        private long tableProbes;
+        private long tableHits;
+        private long tableStores;
+        private long betaCutoffs;
+        private long firstMoveCutoffs;
+
+        // the counters as the other threads read them, copied from the ones above every few nodes and whenever the
+        // searcher is done, as the counters themselves are written without any synchronization
+        private volatile long publishedNodes;
+        private volatile long publishedQuiescenceNodes;
+        private volatile long publishedTableProbes;
+        private volatile long publishedTableHits;
+        private volatile long publishedTableStores;
+        private volatile long publishedBetaCutoffs;
+        private volatile long publishedFirstMoveCutoffs;
+
+        // set once the search has to stop, every node returns straight away from then on
+        private boolean aborted;
+
+        // the split whose task this searcher is running, null for the main thread and the helpers
+        private SplitPoint splitPoint;
+
+        Searcher(int id) {
+            this.id = id;
+            // the helpers always shuffle the root, each in its own order
+            this.random = id == 0 ? new Random() : new Random(id);
+        }
+
+        // half the helpers start one ply deeper, so the threads are not all on the same depth at the same time
+        int getFirstDepth() {
+            return 1 + id % 2;
+        }
+
+        // playedPlies is how far down the principal variation of the previous search the board is, 0 if it is not on it
+        void start(BitBoard board, int playedPlies) {
+            this.board = board;
+            if (playedPlies > 0) {
+                moveOrderer.shiftKillers(playedPlies);
+            } else {
+                moveOrderer.clearKillers();
+            }
+            moveOrderer.ageHistory();
+            nodes = 0;
+            quiescenceNodes = 0;
+            tableProbes = 0;
+            tableHits = 0;
+            tableStores = 0;
+            betaCutoffs = 0;
+            firstMoveCutoffs = 0;
+            publishCounters();
+            aborted = false;
+            rootMovement = Move.NONE;
+            rootMovementFound = false;
+            firstMovement = Move.NONE;
+            completedDepth = 0;
+        }
+
+        // searches one ply deeper each time, returning the result of the last complete iteration
+        MiniMaxResult iterate(int firstDepth, int maxDepth) {
+            MiniMaxResult miniMaxResult = null;
+            for (int iterationDepth = firstDepth; iterationDepth <= maxDepth; iterationDepth++) {
+                final MiniMaxResult iterationResult = aspirationSearch(board, iterationDepth, miniMaxResult);
+                // an iteration stopped halfway has not looked at every movement, so the last complete one is kept
+                if (aborted) {
+                    break;
                 }
-                alpha = Math.max(alpha, bestMovement.getValue());
-                if (beta <= alpha){
+                miniMaxResult = iterationResult;
+                completedDepth = iterationDepth;
+                if (id == 0) {
+                    iterationCompleted(iterationDepth);
+                    if (stopped || budgetExceeded()) {
+                        break;
+                    }
+                } else if (stopped) {
                     break;
                 }
             }
-            cached.put(boardKey, bestMovement);
-            return bestMovement;
-        }else{
-            bestMovement = new MiniMaxResult((1 << 30), null);
-            for (Movement move :
-                    movementsToExplore) {
-
-                Piece originalDestination = realBoard[move.getDestination().getX()][move.getDestination().getY()];
-                Piece originalOrigin = realBoard[move.getOrigin().getX()][move.getOrigin().getY()];
-                // perform the movement
-                realBoard[move.getDestination().getX()][move.getDestination().getY()] = realBoard[move.getOrigin().getX()][move.getOrigin().getY()];
-                realBoard[move.getOrigin().getX()][move.getOrigin().getY()] = null;
-                board.setTurn((board.getTurn() + 1) % 2);
-
-                MiniMaxResult currentResult = miniMax(board, depth - 1, alpha, beta);
-
-                // reverse the move
-                realBoard[move.getDestination().getX()][move.getDestination().getY()] = originalDestination;
-                realBoard[move.getOrigin().getX()][move.getOrigin().getY()] = originalOrigin;
-                board.setTurn((board.getTurn() + 1) % 2);
-
-                if (bestMovement == null || currentResult.getValue() < bestMovement.getValue()){
-                    bestMovement = currentResult;
-                    bestMovement.setMovement(move);
-                }
-                beta = Math.min(beta, bestMovement.getValue());
-                if (beta <= alpha){
+            return miniMaxResult;
+        }
+
+        // copies the counters where the other threads read them. The volatile writes make everything this thread did
+        // before visible to a thread that reads them afterwards
+        private void publishCounters() {
+            publishedNodes = nodes;
+            publishedQuiescenceNodes = quiescenceNodes;
+            publishedTableProbes = tableProbes;
+            publishedTableHits = tableHits;
+            publishedTableStores = tableStores;
+            publishedBetaCutoffs = betaCutoffs;
+            publishedFirstMoveCutoffs = firstMoveCutoffs;
+        }
+
+        MiniMaxResult miniMax(BitBoard board, int depth, int alpha, int beta){
+            final int value = negamax(board, depth, 0, alpha, beta, true);
+            publishCounters();
+            return new MiniMaxResult(value, rootMovement);
+        }
+
+        // counts the node and, every few nodes, checks if the search has to stop. Any thread stops every thread once
+        // the budget runs out, but the main thread and the tasks of its splits only after its first iteration so there
+        // is a movement to play. The task of a split also stops once another movement of the split, or of a split
+        // above, reaches beta
+        private boolean countNode() {
+            if (++nodes % NODES_BETWEEN_CHECKS == 0) {
+                publishCounters();
+                if (searchers[0].rootMovementFound && budgetExceeded()) {
+                    stopped = true;
+                }
+                if ((stopped && (id > 0 || searchers[0].rootMovementFound)) || (splitPoint != null && splitPoint.isCancelled())) {
+                    aborted = true;
+                }
+            }
+            return aborted;
+        }
+
+        // searches the root with a narrow window around the value of the previous iteration, as most of the time the
+        // value hardly changes and a narrow window cuts more, widening it and searching again when the value falls outside
+        private MiniMaxResult aspirationSearch(BitBoard board, int depth, MiniMaxResult previous) {
+            if (previous == null || depth < ASPIRATION_MIN_DEPTH) {
+                return miniMax(board, depth, -INFINITY, INFINITY);
+            }
+            final int previousValue = (int) previous.getValue();
+            int delta = ASPIRATION_WINDOW;
+            int alpha = Math.max(-INFINITY, previousValue - delta);
+            int beta = Math.min(INFINITY, previousValue + delta);
+            while (true) {
+                final MiniMaxResult result = miniMax(board, depth, alpha, beta);
+                if (aborted) {
+                    return result;
+                }
+                if (result.getValue() <= alpha && alpha > -INFINITY) {
+                    delta *= 4;
+                    alpha = delta > ASPIRATION_MAX_WINDOW ? -INFINITY : previousValue - delta;
+                } else if (result.getValue() >= beta && beta < INFINITY) {
+                    delta *= 4;
+                    beta = delta > ASPIRATION_MAX_WINDOW ? INFINITY : previousValue + delta;
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        // negamax: every node looks for the best value for the player whose turn it is, which is minus the value for the
+        // other player, so a single search serves both players. The first movement is searched with the full window and
+        // the rest with a zero window that only proves they are not better, searching again the ones that turn out to be.
+        // ply is the distance to the root, which picks the list the movements are generated into, and allowNullMove is
+        // false right after a null movement, as two in a row would only give the movement back
+        private int negamax(BitBoard board, int depth, int ply, int alpha, int beta, boolean allowNullMove){
+            if (countNode()) {
+                return 0;
+            }
+            if (ply > 0 && board.isRepetition()) {
+                return DRAW;
+            }
+            // the ending is in the tablebases, its value is known without searching
+            if (ply > 0 && tablebases != null) {
+                final int code = tablebases.probe(board, tablebaseSquares);
+                if (Tablebase.isWin(code)) {
+                    return MATE - ply - Tablebase.plies(code);
+                }
+                if (Tablebase.isLoss(code)) {
+                    return -MATE + ply + Tablebase.plies(code);
+                }
+                if (code == Tablebase.DRAW) {
+                    return DRAW;
+                }
+            }
+
+            // check extension: a check is searched one ply deeper, so forcing lines are seen to the end
+            final boolean inCheck = board.isCheck();
+            if (inCheck) {
+                depth++;
+            }
+
+            // the bottom of the tree is reached, only captures are followed from here on until the position is quiet
+            if (depth <= 0 || ply == moveStack.getMaxPly() - 1) {
+                return quiescence(board, ply, alpha, beta);
+            }
+
+            final long boardKey = board.getHash();
+            final long entry = transpositionTable.probe(boardKey);
+            tableProbes++;
+            if (entry != TranspositionTable.NO_ENTRY) {
+                tableHits++;
+            }
+            // the root always searches, as it has to come up with a movement
+            if (ply > 0 && entry != TranspositionTable.NO_ENTRY && TranspositionTable.depth(entry) >= depth) {
+                final int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                final int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                        (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+
+            // nodes searched with a zero window only have to tell if the value is above beta, they are not in the
+            // principal variation and can be pruned more aggressively
+            final boolean zeroWindow = beta - alpha == 1;
+            final int staticValue = inCheck ? -INFINITY : evaluate(board);
+            final boolean frontier = frontierPruning && !inCheck && ply > 0 && depth <= FRONTIER_MAX_DEPTH &&
+                    Math.abs(alpha) < MATE_BOUND && Math.abs(beta) < MATE_BOUND;
+
+            // reverse futility pruning: so far above beta that a few plies could not bring the value back below it
+            if (frontier && zeroWindow && staticValue - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                return staticValue - REVERSE_FUTILITY_MARGIN * depth;
+            }
+
+            // razoring: so far below alpha that only a capture could help, so only captures are searched
+            if (frontier && zeroWindow && depth <= RAZORING_MARGINS.length - 1 && staticValue + RAZORING_MARGINS[depth] < alpha) {
+                final int razorValue = quiescence(board, ply, alpha, beta);
+                if (aborted) {
+                    return 0;
+                }
+                if (depth == 1 || razorValue < alpha) {
+                    return razorValue;
+                }
+            }
+
+            // null move pruning: if passing the turn still leaves the value above beta after a shallower search, a real
+            // movement almost surely would too. In zugzwang passing would be the best movement, so it is never tried
+            // with only pawns left, and with little material left the cutoff is verified with a normal shallow search
+            if (nullMovePruning && allowNullMove && zeroWindow && !inCheck && ply > 0 && depth >= NULL_MOVE_MIN_DEPTH &&
+                    beta < MATE_BOUND && hasPieces(board, board.getTurn()) && staticValue >= beta) {
+                final int reduction = depth > 6 ? NULL_MOVE_REDUCTION + 1 : NULL_MOVE_REDUCTION;
+                board.makeNullMove();
+                int nullValue = -negamax(board, depth - 1 - reduction, ply + 1, -beta, -beta + 1, false);
+                board.unmakeNullMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (nullValue >= beta) {
+                    if (!isZugzwangProne(board, board.getTurn())) {
+                        return beta;
+                    }
+                    final int verifiedValue = negamax(board, depth - reduction, ply, beta - 1, beta, false);
+                    if (aborted) {
+                        return 0;
+                    }
+                    if (verifiedValue >= beta) {
+                        return beta;
+                    }
+                }
+            }
+
+            final MoveList movementsToExplore = moveStack.generateMoves(board, ply);
+
+            // no movements left is checkmate, the sooner the worse, or stalemate
+            if (movementsToExplore.isEmpty()) {
+                return inCheck ? -MATE + ply : DRAW;
+            }
+
+            // the root searches the best movement of the previous iteration first, the rest of nodes the one in the table
+            int hashMovement = TranspositionTable.move(entry);
+            if (ply == 0) {
+                hashMovement = rootMovement != Move.NONE ? rootMovement : firstMovement != Move.NONE ? firstMovement : hashMovement;
+            }
+            // increasing variety of possible moves, equally scored root movements are searched in a random order
+            if (ply == 0 && (randomizeRoot || id != 0)) {
+                movementsToExplore.shuffle(random);
+            }
+            moveOrderer.scoreMoves(board, movementsToExplore, ply, hashMovement);
+
+            // futility pruning: this close to the bottom, quiet movements cannot raise a value this far below alpha
+            final boolean futile = frontier && depth < FUTILITY_MARGINS.length && staticValue + FUTILITY_MARGINS[depth] <= alpha;
+
+            final int originalAlpha = alpha;
+            int bestValue = -INFINITY;
+            int bestMovement = Move.NONE;
+            for (int i = 0; i < movementsToExplore.size(); i++) {
+                final int move = moveOrderer.nextMove(movementsToExplore, ply, i);
+
+                // perform the movement, search and take it back
+                board.makeMove(move);
+                if (futile && i > 0 && !Move.isTactical(move) && !board.isCheck()) {
+                    board.unmakeMove(move);
+                    bestValue = Math.max(bestValue, staticValue + FUTILITY_MARGINS[depth]);
+                    continue;
+                }
+                final int currentValue = i == 0 ? -negamax(board, depth - 1, ply + 1, -beta, -alpha, true) :
+                        searchYoungerMove(board, move, i, depth, ply, alpha, beta, inCheck);
+                board.unmakeMove(move);
+                if (aborted) {
+                    return 0;
+                }
+
+                if (currentValue > bestValue){
+                    bestValue = currentValue;
+                    bestMovement = move;
+                    alpha = Math.max(alpha, bestValue);
+                    if (alpha >= beta){
+                        moveOrderer.addCutoff(board.getTurn(), move, ply, depth);
+                        betaCutoffs++;
+                        if (i == 0) {
+                            firstMoveCutoffs++;
+                        }
+                        break;
+                    }
+                }
+
+                // young brothers wait: the first movement set the window, the rest are searched at the same time
+                if (i == 0 && splitPool != null && !zeroWindow && depth >= SPLIT_MIN_DEPTH && movementsToExplore.size() > 1) {
+                    final SplitPoint split = splitSiblings(board, movementsToExplore, depth, ply, alpha, beta, bestValue, bestMovement);
+                    if (aborted) {
+                        return 0;
+                    }
+                    bestValue = split.getBestValue();
+                    bestMovement = split.getBestMovement();
+                    if (bestValue >= beta) {
+                        moveOrderer.addCutoff(board.getTurn(), bestMovement, ply, depth);
+                        betaCutoffs++;
+                    }
                     break;
                 }
             }
 
-            cached.put(boardKey, bestMovement);
-            return bestMovement;
+            // a value outside the window only bounds the real value, as the search stopped looking once it got there
+            int bound = TranspositionTable.EXACT;
+            if (bestValue <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (bestValue >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            transpositionTable.store(boardKey, scoreToTable(bestValue, ply), depth, bound, bestMovement);
+            tableStores++;
+            if (ply == 0) {
+                rootMovement = bestMovement;
+                rootMovementFound = bestMovement != Move.NONE;
+            }
+            return bestValue;
+        }
+
+        // searches a movement other than the first, already made on the board, with a zero window that only proves it
+        // is not better than alpha, searching it again with the full window if it turns out to be.
+        // Late move reductions: quiet movements ordered late rarely turn out best, so they are searched shallower first
+        // and only searched to the full depth if they beat alpha
+        private int searchYoungerMove(BitBoard board, int move, int index, int depth, int ply, int alpha, int beta, boolean inCheck) {
+            int reduction = 0;
+            if (lateMoveReductions && depth >= LMR_MIN_DEPTH && index >= LMR_MIN_MOVES && !inCheck &&
+                    !Move.isTactical(move) && !moveOrderer.isKiller(ply, move) && !board.isCheck()) {
+                reduction = depth >= 6 && index >= 2 * LMR_MIN_MOVES ? 2 : 1;
+            }
+            int currentValue = -negamax(board, depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+            if (reduction > 0 && currentValue > alpha) {
+                currentValue = -negamax(board, depth - 1, ply + 1, -alpha - 1, -alpha, true);
+            }
+            if (currentValue > alpha && currentValue < beta) {
+                currentValue = -negamax(board, depth - 1, ply + 1, -beta, -alpha, true);
+            }
+            return currentValue;
+        }
+
+        // forks a task for each movement after the first, each on its own copy of the board, and waits for them all.
+        // Meanwhile this thread runs tasks too, these or any other
+        private SplitPoint splitSiblings(BitBoard board, MoveList movementsToExplore, int depth, int ply, int alpha, int beta,
+                                         int bestValue, int bestMovement) {
+            final SplitPoint split = new SplitPoint(splitPoint, alpha, beta, bestValue, bestMovement);
+            final List<SiblingSearch> siblings = new ArrayList<>();
+            for (int i = 1; i < movementsToExplore.size(); i++) {
+                final int move = moveOrderer.nextMove(movementsToExplore, ply, i);
+                siblings.add(new SiblingSearch(split, board.copy(), move, i, depth, ply));
+            }
+            ForkJoinTask.invokeAll(siblings);
+            if (split.incomplete) {
+                aborted = true;
+            }
+            return split;
         }
 
-        // this should not happen
+        // searches a movement of a split as a task, starting from the alpha left by the movements done so far
+        int searchSibling(SplitPoint split, BitBoard board, int move, int index, int depth, int ply) {
+            this.board = board;
+            this.splitPoint = split;
+            aborted = split.isCancelled();
+            if (!aborted) {
+                final boolean inCheck = board.isCheck();
+                board.makeMove(move);
+                final int value = searchYoungerMove(board, move, index, depth, ply, split.getAlpha(), split.beta, inCheck);
+                board.unmakeMove(move);
+                publishCounters();
+                if (!aborted) {
+                    split.update(value, move);
+                    return value;
+                }
+            }
+            // stopped by a cutoff in this split the value is not needed, otherwise the split is not done
+            if (!split.cancelled) {
+                split.incomplete = true;
+            }
+            return -INFINITY;
+        }
+
+        // searches captures and promotions only, so the evaluation is never taken in the middle of an exchange. The player
+        // to move may stand pat, keep the evaluation instead of capturing, so a capture is only searched if it could raise
+        // alpha, and one that would not even with the captured piece as a free gain plus a margin is not searched at all.
+        // In check every movement is searched, as standing pat is not an option
+        private int quiescence(BitBoard board, int ply, int alpha, int beta) {
+            if (countNode()) {
+                return 0;
+            }
+            quiescenceNodes++;
+            if (ply == moveStack.getMaxPly() - 1) {
+                return evaluate(board);
+            }
+
+            final boolean inCheck = board.isCheck();
+            int standPat = -INFINITY;
+            if (!inCheck) {
+                standPat = evaluate(board);
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                alpha = Math.max(alpha, standPat);
+            }
+
+            final MoveList movementsToExplore = moveStack.generateTacticalMoves(board, ply);
+            if (inCheck && movementsToExplore.isEmpty()) {
+                return -MATE + ply;
+            }
+            moveOrderer.scoreMoves(board, movementsToExplore, ply, Move.NONE);
+
+            int bestValue = standPat;
+            for (int i = 0; i < movementsToExplore.size(); i++) {
+                final int move = moveOrderer.nextMove(movementsToExplore, ply, i);
+                if (!inCheck && standPat + captureGain(board, move) + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+
+                board.makeMove(move);
+                final int currentValue = -quiescence(board, ply + 1, -beta, -alpha);
+                board.unmakeMove(move);
+                if (aborted) {
+                    return 0;
+                }
+
+                if (currentValue > bestValue) {
+                    bestValue = currentValue;
+                    alpha = Math.max(alpha, bestValue);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            return bestValue;
+        }
+    }
+
+    // material won by a capture or promotion
+    private static int captureGain(BitBoard board, int move) {
+        int gain = 0;
+        if (Move.isEnPassant(move)) {
+            gain = BasicEvaluationMethod.pieceValue(BitBoard.PAWN);
+        } else if (Move.isCapture(move)) {
+            gain = BasicEvaluationMethod.pieceValue(BitBoard.typeOf(board.getPiece(Move.to(move))));
+        }
+        if (Move.isPromotion(move)) {
+            gain += BasicEvaluationMethod.pieceValue(Move.promotion(move)) - BasicEvaluationMethod.pieceValue(BitBoard.PAWN);
+        }
+        return gain;
+    }
+
+    // checks if the player has any piece other than pawns and the king
+    private static boolean hasPieces(BitBoard board, int color) {
+        return (board.getPieces(color, BitBoard.KNIGHT) | board.getPieces(color, BitBoard.BISHOP) |
+                board.getPieces(color, BitBoard.ROOK) | board.getPieces(color, BitBoard.QUEEN)) != 0;
+    }
+
+    // with a single piece left besides pawns, having to move can be a disadvantage
+    private static boolean isZugzwangProne(BitBoard board, int color) {
+        return Long.bitCount(board.getPieces(color, BitBoard.KNIGHT) | board.getPieces(color, BitBoard.BISHOP) |
+                board.getPieces(color, BitBoard.ROOK) | board.getPieces(color, BitBoard.QUEEN)) <= 1;
+    }
+
+    // the evaluation is positive when white is better, negamax needs it from the side of the player to move
+    private int evaluate(BitBoard board) {
+        final int value = basicEvaluationMethod.evaluateBoard(board, board.getTurn());
+        return board.getTurn() == BitBoard.WHITE ? value : -value;
+    }
+
+    // mate values count plies from the root, the table keeps them counting from the position so they hold anywhere
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
     }
 }
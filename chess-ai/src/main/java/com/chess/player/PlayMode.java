@@ -1,6 +1,6 @@
 package com.chess.player;
 
-import com.chess.Board;
+import com.chess.BoardState;
 import com.chess.Color;
 import com.chess.Movement;
 
@@ -15,7 +15,15 @@ public abstract class PlayMode {
         this.identifier = identifier;
     }
 
-    public abstract Movement getNextMove(Board board, int turn);
+    public abstract Movement getNextMove(BoardState board, int turn);
+
+    // asks the player to give its movement straight away, getNextMove returns the best one it has so far
+    public void stop() {
+    }
+
+    // frees what the player holds once its game is over
+    public void close() {
+    }
 
     public String getIdentifier() {
         return identifier;
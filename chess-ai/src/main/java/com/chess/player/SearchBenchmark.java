@@ -0,0 +1,83 @@
+package com.chess.player;
+
+import com.chess.Color;
+import com.chess.bitboard.BitBoard;
+import com.chess.bitboard.Move;
+import com.chess.bitboard.Perft;
+
+import java.util.Arrays;
+
+/**
+ * This class compares the ways of searching in parallel against a single thread, searching the same positions to the
+ * same depth with each. It runs without the GUI:
+ *
+ *   java -cp tree-based-chess-ai.jar com.chess.player.SearchBenchmark 7 8 [FEN | file.chess]
+ *
+ * searches to depth 7 with 1 and with 8 threads the positions below, or the one given. For each way of searching it
+ * prints the speedup, the time of a single thread over the time taken, and the search overhead, how many more nodes
+ * than a single thread were searched. Every search starts with an empty transposition table.
+ * **/
+public final class SearchBenchmark {
+
+    private static final String[] POSITIONS = {
+            Perft.START_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    };
+
+    private SearchBenchmark() {
+    }
+
+    // time and nodes of searching every position
+    private static long[] run(String[] positions, int depth, int threads, MiniMaxAI.ParallelSearch parallelSearch) throws Exception {
+        long nanos = 0;
+        long nodes = 0;
+        for (String position : positions) {
+            final BitBoard board = Perft.load(position);
+            final MiniMaxAI ai = new MiniMaxAI("benchmark", depth, board.getTurn() == BitBoard.WHITE ? Color.WHITE : Color.BLACK);
+            ai.setRandomizeRoot(false);
+            ai.setParallelSearch(parallelSearch);
+            ai.setThreads(threads);
+
+            final long start = System.nanoTime();
+            final MiniMaxAI.MiniMaxResult result = ai.search(board);
+            nanos += System.nanoTime() - start;
+            nodes += ai.getNodes();
+            System.out.println(threads + " threads " + parallelSearch + " " + position + ": " +
+                    Move.toString(result.getMovement()) + " value " + result.getValue() + " " + ai.getStatistics());
+        }
+        return new long[]{nanos, nodes};
+    }
+
+    private static void report(String name, long[] measured, long[] serial) {
+        final long millis = Math.max(1, measured[0] / 1_000_000);
+        System.out.println(String.format("%-30s %8d ms %12d nodes %10d nodes per second  speedup %.2f  overhead %+.1f%%",
+                name, millis, measured[1], measured[1] * 1000 / millis,
+                (double) serial[0] / Math.max(1, measured[0]), 100.0 * (measured[1] - serial[1]) / serial[1]));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: SearchBenchmark <depth> <threads> [FEN | file.chess]");
+            System.exit(1);
+        }
+        final int depth = Integer.parseInt(args[0]);
+        final int threads = Integer.parseInt(args[1]);
+        final String[] positions = args.length > 2 ?
+                new String[]{String.join(" ", Arrays.copyOfRange(args, 2, args.length))} : POSITIONS;
+
+        // the first searches run before the code is compiled, so they are not measured
+        run(positions, depth, 1, MiniMaxAI.ParallelSearch.SHARED_HASH);
+        final long[] serial = run(positions, depth, 1, MiniMaxAI.ParallelSearch.SHARED_HASH);
+        final long[] sharedHash = run(positions, depth, threads, MiniMaxAI.ParallelSearch.SHARED_HASH);
+        final long[] youngBrothersWait = run(positions, depth, threads, MiniMaxAI.ParallelSearch.YOUNG_BROTHERS_WAIT);
+
+        System.out.println("Depth " + depth + ", " + positions.length + " positions, " +
+                Runtime.getRuntime().availableProcessors() + " processors");
+        report("1 thread", serial, serial);
+        report(threads + " threads " + MiniMaxAI.ParallelSearch.SHARED_HASH, sharedHash, serial);
+        report(threads + " threads " + MiniMaxAI.ParallelSearch.YOUNG_BROTHERS_WAIT, youngBrothersWait, serial);
+    }
+}
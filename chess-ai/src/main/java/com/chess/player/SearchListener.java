@@ -0,0 +1,14 @@
+package com.chess.player;
+
+/**
+ * This interface is told how a search of MiniMaxAI goes, see MiniMaxAI.addSearchListener. Its methods are called by
+ * the thread running the search, between iterations, so they should return quickly.
+ * **/
+public interface SearchListener {
+
+    // called after every iteration the search completes, with the statistics of the search so far
+    void iterationCompleted(SearchStatistics statistics);
+
+    // called once the search is over, with the statistics of the whole search
+    void searchCompleted(SearchStatistics statistics);
+}
@@ -0,0 +1,147 @@
+package com.chess.player;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * This class shows the statistics of the searches of an AI as a JMX MBean, so tools like JConsole or VisualVM can
+ * follow the nodes per second, the hit rate of the transposition table or the branching factor of a running game.
+ * It listens to the AI, see SearchListener, keeping the statistics of the last search and adding up every search.
+ * **/
+public final class SearchMonitor implements SearchMonitorMBean, SearchListener {
+
+    public static final String DOMAIN = "com.chess";
+
+    private final ObjectName objectName;
+
+    private volatile SearchStatistics last;
+
+    private long searches;
+
+    private long totalNodes;
+
+    private long totalMillis;
+
+    private SearchMonitor(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    // listens to the AI and registers the MBean in the platform server under its name, replacing the one of a previous
+    // AI with the same name
+    public static SearchMonitor register(MiniMaxAI ai) {
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=Search,name=" + ObjectName.quote(ai.getName()));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final SearchMonitor monitor = new SearchMonitor(objectName);
+            synchronized (SearchMonitor.class) {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(monitor, objectName);
+            }
+            ai.addSearchListener(monitor);
+            return monitor;
+        } catch (JMException e) {
+            throw new IllegalStateException("Search monitor not registered for " + ai.getName(), e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public void iterationCompleted(SearchStatistics statistics) {
+        last = statistics;
+    }
+
+    @Override
+    public synchronized void searchCompleted(SearchStatistics statistics) {
+        last = statistics;
+        searches++;
+        totalNodes += statistics.getNodes();
+        totalMillis += statistics.getMillis();
+    }
+
+    @Override
+    public synchronized long getSearches() {
+        return searches;
+    }
+
+    @Override
+    public synchronized long getTotalNodes() {
+        return totalNodes;
+    }
+
+    @Override
+    public synchronized long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public synchronized long getAverageNodesPerSecond() {
+        return totalMillis == 0 ? 0 : totalNodes * 1000 / totalMillis;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return last == null ? 0 : last.getDepth();
+    }
+
+    @Override
+    public long getLastNodes() {
+        return last == null ? 0 : last.getNodes();
+    }
+
+    @Override
+    public long getLastQuiescenceNodes() {
+        return last == null ? 0 : last.getQuiescenceNodes();
+    }
+
+    @Override
+    public long getLastMillis() {
+        return last == null ? 0 : last.getMillis();
+    }
+
+    @Override
+    public long getLastNodesPerSecond() {
+        return last == null ? 0 : last.getNodesPerSecond();
+    }
+
+    @Override
+    public double getLastTableHitRate() {
+        return last == null ? 0 : last.getTableHitRate();
+    }
+
+    @Override
+    public long getLastTableStores() {
+        return last == null ? 0 : last.getTableStores();
+    }
+
+    @Override
+    public long getLastBetaCutoffs() {
+        return last == null ? 0 : last.getBetaCutoffs();
+    }
+
+    @Override
+    public double getLastFirstMoveCutoffRate() {
+        return last == null ? 0 : last.getFirstMoveCutoffRate();
+    }
+
+    @Override
+    public double getLastEffectiveBranchingFactor() {
+        return last == null ? 0 : last.getEffectiveBranchingFactor();
+    }
+
+    @Override
+    public long[] getLastIterationMillis() {
+        return last == null ? new long[0] : last.getIterationMillis();
+    }
+
+    @Override
+    public long[] getLastIterationNodes() {
+        return last == null ? new long[0] : last.getIterationNodes();
+    }
+}
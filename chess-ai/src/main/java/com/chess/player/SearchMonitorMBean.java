@@ -0,0 +1,40 @@
+package com.chess.player;
+
+/**
+ * The attributes SearchMonitor shows through JMX, for the last search of an AI and for every search since it was
+ * registered.
+ * **/
+public interface SearchMonitorMBean {
+
+    long getSearches();
+
+    long getTotalNodes();
+
+    long getTotalMillis();
+
+    long getAverageNodesPerSecond();
+
+    int getLastDepth();
+
+    long getLastNodes();
+
+    long getLastQuiescenceNodes();
+
+    long getLastMillis();
+
+    long getLastNodesPerSecond();
+
+    double getLastTableHitRate();
+
+    long getLastTableStores();
+
+    long getLastBetaCutoffs();
+
+    double getLastFirstMoveCutoffRate();
+
+    double getLastEffectiveBranchingFactor();
+
+    long[] getLastIterationMillis();
+
+    long[] getLastIterationNodes();
+}
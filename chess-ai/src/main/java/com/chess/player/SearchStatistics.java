@@ -0,0 +1,133 @@
+package com.chess.player;
+
+/**
+ * This class holds what a search of MiniMaxAI did so far, added up over every thread: the nodes, the ones of them in
+ * the quiescence search, the probes of the transposition table and how many found an entry, the entries stored, the
+ * nodes cut at beta and how many of them by their first movement, and the nodes and time of every iteration completed.
+ * Each thread counts in its own plain fields and copies them every few nodes into volatile ones, the only ones read
+ * when the statistics are taken, so counting costs the search next to nothing. The statistics are taken after every
+ * iteration and at the end of the search, once every thread is done, see SearchListener, and do not change afterwards.
+ * **/
+public final class SearchStatistics {
+
+    private final long nodes;
+
+    private final long quiescenceNodes;
+
+    private final long tableProbes;
+
+    private final long tableHits;
+
+    private final long tableStores;
+
+    private final long betaCutoffs;
+
+    private final long firstMoveCutoffs;
+
+    // since the search started
+    private final long nanos;
+
+    // depth, nodes counted from the end of the previous one and time of each iteration completed, in order
+    private final int[] iterationDepths;
+    private final long[] iterationNodes;
+    private final long[] iterationNanos;
+
+    SearchStatistics(long nodes, long quiescenceNodes, long tableProbes, long tableHits, long tableStores,
+                     long betaCutoffs, long firstMoveCutoffs, long nanos,
+                     int[] iterationDepths, long[] iterationNodes, long[] iterationNanos) {
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.tableStores = tableStores;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.nanos = nanos;
+        this.iterationDepths = iterationDepths;
+        this.iterationNodes = iterationNodes;
+        this.iterationNanos = iterationNanos;
+    }
+
+    // every node, the ones of the quiescence search included
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    public long getTableStores() {
+        return tableStores;
+    }
+
+    // share of the probes of the transposition table that found the position
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    // nodes of the main search, not the quiescence one, whose value reached beta
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    // share of the cutoffs made by the first movement searched, the closer to 1 the better the movements are ordered
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    // depth of the last iteration completed, 0 if none was
+    public int getDepth() {
+        return iterationDepths.length == 0 ? 0 : iterationDepths[iterationDepths.length - 1];
+    }
+
+    public int[] getIterationDepths() {
+        return iterationDepths.clone();
+    }
+
+    public long[] getIterationNodes() {
+        return iterationNodes.clone();
+    }
+
+    public long[] getIterationMillis() {
+        final long[] millis = new long[iterationNanos.length];
+        for (int i = 0; i < millis.length; i++) {
+            millis[i] = iterationNanos[i] / 1_000_000;
+        }
+        return millis;
+    }
+
+    // how many times more nodes the last iteration took than the one before, 0 until two iterations are completed
+    public double getEffectiveBranchingFactor() {
+        final int last = iterationNodes.length - 1;
+        return last < 1 || iterationNodes[last - 1] == 0 ? 0 : (double) iterationNodes[last] / iterationNodes[last - 1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d nodes %d (%d quiescence) %d ms %d nodes per second, table hits %.1f%% of %d " +
+                        "probes, %d stores, %d cutoffs %.1f%% by the first movement, branching factor %.2f",
+                getDepth(), nodes, quiescenceNodes, getMillis(), getNodesPerSecond(), 100 * getTableHitRate(),
+                tableProbes, tableStores, betaCutoffs, 100 * getFirstMoveCutoffRate(), getEffectiveBranchingFactor());
+    }
+}